@@ -1,6 +1,6 @@
 package code;
 
-public class AccessModifier implements Exp {
+public class AccessModifier extends Node implements Exp {
   @Override
 	public int hashCode() {
 		final int prime = 31;
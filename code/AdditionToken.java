@@ -1,6 +1,8 @@
 package code;
 
 public class AdditionToken implements Token {
+    public static final AdditionToken INSTANCE = new AdditionToken();
+
     public boolean equals(final Object other) {
         return other instanceof AdditionToken;
     }
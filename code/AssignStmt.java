@@ -1,6 +1,6 @@
 package code;
 
-public class AssignStmt implements Stmt {
+public class AssignStmt extends Node implements Stmt {
     public final Variable variable;
     public final Exp exp;
     
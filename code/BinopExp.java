@@ -1,6 +1,6 @@
 package code;
 
-public class BinopExp implements Exp {
+public class BinopExp extends Node implements Exp {
     public final Exp left;
     public final BOP bop;
     public final Exp right;
@@ -13,6 +13,24 @@ public class BinopExp implements Exp {
         this.right = right;
     }
 
+    // operators carry no data, so two are the same if they're the same class
+    @Override
+    public boolean equals(final Object other) {
+        if (other instanceof BinopExp) {
+            final BinopExp otherBinop = (BinopExp)other;
+            return (left.equals(otherBinop.left) &&
+                    bop.getClass() == otherBinop.bop.getClass() &&
+                    right.equals(otherBinop.right));
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return (left.hashCode() * 31 + bop.getClass().hashCode()) * 31 + right.hashCode();
+    }
+
     @Override
     public String toString() {
         return ("(" +
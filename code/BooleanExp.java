@@ -1,7 +1,7 @@
 package code;
 
 
-public class BooleanExp implements Exp {
+public class BooleanExp extends Node implements Exp {
   public final boolean value;
 
   public BooleanExp(final boolean value) {
@@ -1,6 +1,6 @@
 package code;
 
-public class BooleanLiteralExp implements Exp {
+public class BooleanLiteralExp extends Node implements Exp {
     public final boolean value;
 
     public BooleanLiteralExp(final boolean value) {
@@ -1,5 +1,5 @@
 package code;
-public class BreakExp implements Exp{ 
+public class BreakExp extends Node implements Exp{ 
   final String str;
 	@Override
 	public int hashCode() {
@@ -1,3 +1,3 @@
 package code;
 
-public class BreakStmt implements Stmt {}
+public class BreakStmt extends Node implements Stmt {}
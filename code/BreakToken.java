@@ -1,5 +1,7 @@
 package code;
 public class BreakToken implements Token {
+    public static final BreakToken INSTANCE = new BreakToken();
+
     public boolean equals(final Object other) {
         return other instanceof BreakToken;
     }
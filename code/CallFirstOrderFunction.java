@@ -1,7 +1,7 @@
 package code;
 import java.util.List;
 
-public class CallFirstOrderFunction implements Exp {
+public class CallFirstOrderFunction extends Node implements Exp {
     public final FunctionName functionName;
     public final List<Exp> actualParams;
 
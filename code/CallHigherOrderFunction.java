@@ -3,7 +3,7 @@ package code;
 // f(1)
 // ((x : Int) => x + 1)(3 + 2)
 // 1(2)
-public class CallHigherOrderFunction implements Exp {
+public class CallHigherOrderFunction extends Node implements Exp {
     public final Exp theFunction;
     public final Exp theParameter;
 
@@ -1,5 +1,5 @@
 package code;
-public class ClassExp implements Exp{
+public class ClassExp extends Node implements Exp{
 	public final String name;
 
   public ClassExp(final String name) {
@@ -47,14 +47,26 @@ public class ClassGenerator {
     // ---BEGIN INSTANCE VARIABLES---
     private final Map<ClassName, ClassDefinition> allClasses;
     private final LambdaMaker lambdaMaker;
+    private final String sourceFile;
+    private final LineMap lines;
     // ---END INSTANCE VARIABLES---
 
     public ClassGenerator(final Program program) throws CodeGeneratorException {
-        this(program.classDefs);
+        this(program.classDefs, program.sourceFile, program.lines);
     } // ClassGenerator
     
     public ClassGenerator(final List<ClassDefinition> allClasses)
         throws CodeGeneratorException {
+        this(allClasses, null, null);
+    } // ClassGenerator
+
+    // with sourceFile and lines, the classes get line number tables
+    public ClassGenerator(final List<ClassDefinition> allClasses,
+                          final String sourceFile,
+                          final LineMap lines)
+        throws CodeGeneratorException {
+        this.sourceFile = sourceFile;
+        this.lines = lines;
         this.allClasses = new HashMap<ClassName, ClassDefinition>();
         for (final ClassDefinition classDef : allClasses) {
             if (this.allClasses.containsKey(classDef.name)) {
@@ -110,7 +122,7 @@ public class ClassGenerator {
         public SingleClassGenerator(final ClassDefinition forClass)
             throws CodeGeneratorException {
             this.forClass = forClass;
-            thisType = new ReferenceType(forClass.name);
+            thisType = Types.reference(forClass.name);
             classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
             classWriter.visit(V1_7, // Java 1.7
                               ACC_PUBLIC, // public
@@ -118,6 +130,9 @@ public class ClassGenerator {
                               null, // signature (null means not generic)
                               forClass.extendsName.name, // superclass
                               new String[0]); // interfaces
+            if (sourceFile != null) {
+                classWriter.visitSource(sourceFile, null);
+            }
             writeInstanceVariables(classWriter, forClass.instanceVariables);
         } // SingleClassGenerator
 
@@ -160,7 +175,8 @@ public class ClassGenerator {
                     new ExpressionStatementGenerator(allClasses,
                                                      lambdaMaker,
                                                      variables,
-                                                     methodVisitor);
+                                                     methodVisitor,
+                                                     lines);
                 if (method instanceof Constructor) {
                     // ---BEGIN CODE FOR SUPER---
                     gen.loadVariable(thisVariable); // load "this"
@@ -174,7 +190,7 @@ public class ClassGenerator {
                 }
                 gen.writeStatements(method.body);
                 if (method instanceof MethodDefinition) {
-                    gen.writeExpression(((MethodDefinition)method).returned);
+                    gen.writeExpression(((MethodDefinition)method).getReturned());
                 }
                 gen.doReturn(method.returnType);
                 methodVisitor.visitMaxs(0, 0);
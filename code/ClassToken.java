@@ -1,5 +1,7 @@
 package code;
 public class ClassToken implements Token {
+    public static final ClassToken INSTANCE = new ClassToken();
+
     public boolean equals(final Object other) {
         return other instanceof ClassToken;
     }
@@ -0,0 +1,8 @@
+package code;
+public class CommaToken implements Token {
+    public static final CommaToken INSTANCE = new CommaToken();
+
+    public boolean equals(final Object other) {
+        return other instanceof CommaToken;
+    }
+}
@@ -11,7 +11,7 @@ public class Constructor extends Callable {
         super(new MethodName("<init>"),
               formalParams,
               body,
-              new VoidType());
+              Types.VOID);
         this.superParams = superParams;
     } // Constructor
 } // Constructor
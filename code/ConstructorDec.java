@@ -1,5 +1,5 @@
 package code;
-public class ConstructorDec implements Exp {
+public class ConstructorDec extends Node implements Exp {
 public final Token access;
 	public final String type;
 	public final String name;
@@ -1,2 +1,2 @@
 package code;
-public class ContinueStmt implements Stmt {}
+public class ContinueStmt extends Node implements Stmt {}
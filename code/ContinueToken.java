@@ -0,0 +1,8 @@
+package code;
+public class ContinueToken implements Token {
+    public static final ContinueToken INSTANCE = new ContinueToken();
+
+    public boolean equals(final Object other) {
+        return other instanceof ContinueToken;
+    }
+}
@@ -1,5 +1,7 @@
 package code;
 public class DecrementToken implements Token {
+    public static final DecrementToken INSTANCE = new DecrementToken();
+
     public boolean equals(final Object other) {
         return other instanceof DecrementToken;
     }
@@ -1,5 +1,5 @@
 package code;
-public class DivExp implements Exp{
+public class DivExp extends Node implements Exp{
 	public final Exp left;
   public final Exp right;
 
@@ -1,5 +1,7 @@
 package code;
 public class DivisionToken implements Token {
+    public static final DivisionToken INSTANCE = new DivisionToken();
+
     public boolean equals(final Object other) {
         return other instanceof DivisionToken;
     }
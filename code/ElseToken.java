@@ -1,5 +1,7 @@
 package code;
 public class ElseToken implements Token {
+    public static final ElseToken INSTANCE = new ElseToken();
+
     public boolean equals(final Object other) {
         return other instanceof ElseToken;
     }
@@ -1,2 +1,2 @@
 package code;
-public class EmptyStmt implements Stmt {}
+public class EmptyStmt extends Node implements Stmt {}
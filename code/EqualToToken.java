@@ -1,5 +1,7 @@
 package code;
 public class EqualToToken implements Token {
+    public static final EqualToToken INSTANCE = new EqualToToken();
+
     public boolean equals(final Object other) {
         return other instanceof EqualToToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class EqualToken implements Token {
+    public static final EqualToken INSTANCE = new EqualToken();
+
     public boolean equals(final Object other) {
         return other instanceof EqualToken;
     }
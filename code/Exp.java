@@ -1,3 +1,7 @@
 package code;
 
-public interface Exp {}
+public interface Exp {
+    // see Node
+    public int getPosition();
+    public void setPosition(int position);
+}
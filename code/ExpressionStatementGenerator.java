@@ -12,22 +12,35 @@ public class ExpressionStatementGenerator {
     private final LambdaMaker lambdaMaker;
     private final VariableTable variables;
     private final MethodVisitor methodVisitor;
+    // null if there's no source to give line numbers for
+    private final LineMap lines;
+    private int lastLine;
     // ---END INSTANCE VARIABLES---
 
     public ExpressionStatementGenerator(final Map<ClassName, ClassDefinition> allClasses,
                                         final LambdaMaker lambdaMaker,
                                         final VariableTable variables,
                                         final MethodVisitor methodVisitor) {
+        this(allClasses, lambdaMaker, variables, methodVisitor, null);
+    }
+
+    public ExpressionStatementGenerator(final Map<ClassName, ClassDefinition> allClasses,
+                                        final LambdaMaker lambdaMaker,
+                                        final VariableTable variables,
+                                        final MethodVisitor methodVisitor,
+                                        final LineMap lines) {
         this.allClasses = allClasses;
         this.lambdaMaker = lambdaMaker;
         this.variables = variables;
         this.methodVisitor = methodVisitor;
+        this.lines = lines;
+        lastLine = 0;
     }
 
     public static String printlnDescriptorString(final Type forType) {
         final String inner;
         if (forType instanceof ReferenceType) {
-            inner = new ReferenceType(new ClassName(ClassGenerator.objectName)).toDescriptorString();
+            inner = Types.OBJECT.toDescriptorString();
         } else {
             inner = forType.toDescriptorString();
         }
@@ -149,8 +162,16 @@ public class ExpressionStatementGenerator {
         final Label afterCondition = new Label();
         if (bop instanceof LessThanBOP) {
             methodVisitor.visitJumpInsn(IF_ICMPLT, conditionTrue);
-        } else if (bop instanceof EqualsBOP) {
+        } else if (bop instanceof LessThanEqualBOP) {
+            methodVisitor.visitJumpInsn(IF_ICMPLE, conditionTrue);
+        } else if (bop instanceof GreaterThanBOP) {
+            methodVisitor.visitJumpInsn(IF_ICMPGT, conditionTrue);
+        } else if (bop instanceof GreaterThanEqualBOP) {
+            methodVisitor.visitJumpInsn(IF_ICMPGE, conditionTrue);
+        } else if (bop instanceof EqualsBOP || bop instanceof EqualsToBOP) {
             methodVisitor.visitJumpInsn(IF_ICMPEQ, conditionTrue);
+        } else if (bop instanceof NotEqualsBOP) {
+            methodVisitor.visitJumpInsn(IF_ICMPNE, conditionTrue);
         } else {
             assert(false);
             throw new CodeGeneratorException("Unrecognized operation: " + bop);
@@ -165,14 +186,19 @@ public class ExpressionStatementGenerator {
     public void writeOp(final BOP bop) throws CodeGeneratorException {
         if (bop instanceof PlusBOP) {
             methodVisitor.visitInsn(IADD);
-        } else if (bop instanceof MinusBOP) {
+        } else if (bop instanceof MinusBOP || bop instanceof SubBOP) {
             methodVisitor.visitInsn(ISUB);
         } else if (bop instanceof DivBOP) {
             methodVisitor.visitInsn(IDIV);
         } else if (bop instanceof MultBOP) {
             methodVisitor.visitInsn(IMUL);
         } else if (bop instanceof LessThanBOP ||
-                   bop instanceof EqualsBOP) {
+                   bop instanceof LessThanEqualBOP ||
+                   bop instanceof GreaterThanBOP ||
+                   bop instanceof GreaterThanEqualBOP ||
+                   bop instanceof EqualsBOP ||
+                   bop instanceof EqualsToBOP ||
+                   bop instanceof NotEqualsBOP) {
             writeArithmeticComparisonOp(bop);
         } else {
             assert(false);
@@ -180,6 +206,28 @@ public class ExpressionStatementGenerator {
         }
     } // writeOp
 
+    public void writeShortCircuit(final BinopExp binop) throws CodeGeneratorException {
+        // right is only evaluated if left doesn't already decide the answer.
+        // For &&:
+        //   left
+        //   if left is false, jump to short_circuit
+        //   right
+        //   goto after
+        // short_circuit:
+        //   push 0 (1 for ||)
+        // after:
+        final boolean isAnd = binop.bop instanceof AndBOP;
+        final Label shortCircuit = new Label();
+        final Label after = new Label();
+        writeExpression(binop.left);
+        methodVisitor.visitJumpInsn((isAnd) ? IFEQ : IFNE, shortCircuit);
+        writeExpression(binop.right);
+        methodVisitor.visitJumpInsn(GOTO, after);
+        methodVisitor.visitLabel(shortCircuit);
+        writeIntLiteral((isAnd) ? 0 : 1);
+        methodVisitor.visitLabel(after);
+    } // writeShortCircuit
+
     public void writeMethodCall(final MethodCallExp call) throws CodeGeneratorException {
         writeExpression(call.callOn);
         writeExpressions(call.actualParams);
@@ -240,9 +288,18 @@ public class ExpressionStatementGenerator {
             loadVariable(((VariableExp)exp).variable);
         } else if (exp instanceof IntegerLiteralExp) {
             writeIntLiteral(((IntegerLiteralExp)exp).value);
+        } else if (exp instanceof IntegerExp) {
+            // what the parser makes
+            writeIntLiteral(((IntegerExp)exp).value);
         } else if (exp instanceof BooleanLiteralExp) {
             final boolean value = ((BooleanLiteralExp)exp).value;
             writeIntLiteral((value) ? 1 : 0);
+        } else if (exp instanceof BooleanExp) {
+            writeIntLiteral((((BooleanExp)exp).value) ? 1 : 0);
+        } else if (exp instanceof BinopExp &&
+                   (((BinopExp)exp).bop instanceof AndBOP ||
+                    ((BinopExp)exp).bop instanceof OrBOP)) {
+            writeShortCircuit((BinopExp)exp);
         } else if (exp instanceof BinopExp) {
             final BinopExp asBinop = (BinopExp)exp;
             writeExpression(asBinop.left);
@@ -271,7 +328,7 @@ public class ExpressionStatementGenerator {
         methodVisitor.visitFieldInsn(GETSTATIC,
                                      "java/lang/System",
                                      "out",
-                                     new ReferenceType(new ClassName("java/io/PrintStream")).toDescriptorString());
+                                     Types.reference(new ClassName("java/io/PrintStream")).toDescriptorString());
         loadVariable(variable);
         methodVisitor.visitMethodInsn(INVOKEVIRTUAL,
                                       "java/io/PrintStream",
@@ -339,7 +396,22 @@ public class ExpressionStatementGenerator {
         }
     } // writeStatements
 
+    // Adds a LineNumberTable entry saying the code which follows came from the
+    // line position is on, unless that's the line we're already on.
+    public void markLine(final int position) {
+        if (lines != null && position != Node.NO_POSITION) {
+            final int line = lines.line(position);
+            if (line != lastLine) {
+                final Label start = new Label();
+                methodVisitor.visitLabel(start);
+                methodVisitor.visitLineNumber(line, start);
+                lastLine = line;
+            }
+        }
+    } // markLine
+
     public void writeStatement(final Stmt stmt) throws CodeGeneratorException {
+        markLine(stmt.getPosition());
         if (stmt instanceof VariableDeclarationStmt) {
             final VariableDeclarationStmt asDec = (VariableDeclarationStmt)stmt;
             variables.addEntry(asDec.variable, asDec.type);
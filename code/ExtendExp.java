@@ -1,5 +1,5 @@
 package code;
-public class ExtendExp implements Exp{
+public class ExtendExp extends Node implements Exp{
 public final Exp class1;
 public final Exp class2;
 
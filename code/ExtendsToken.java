@@ -1,5 +1,7 @@
 package code;
 public class ExtendsToken implements Token {
+  public static final ExtendsToken INSTANCE = new ExtendsToken();
+
   public boolean equals(final Object other) {
     return other instanceof ExtendsToken;
 }
@@ -1,5 +1,5 @@
 package code;
-public class ForExp implements Exp {
+public class ForExp extends Node implements Exp {
 	public final Exp init;
 	public final Exp cond;
 	public final Exp inc;
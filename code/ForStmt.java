@@ -9,7 +9,7 @@ package code;
 
 import java.util.List;
 
-public class ForStmt implements Stmt {
+public class ForStmt extends Node implements Stmt {
     public final Stmt initializer;
     public final Exp guard;
     public final Stmt update;
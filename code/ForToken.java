@@ -1,5 +1,7 @@
 package code;
 public class ForToken implements Token {
+    public static final ForToken INSTANCE = new ForToken();
+
     public boolean equals(final Object other) {
         return other instanceof ForToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class FunctionToken implements Token {
+    public static final FunctionToken INSTANCE = new FunctionToken();
+
     public boolean equals(final Object other) {
         return other instanceof FunctionToken;
     }
@@ -3,11 +3,13 @@ package code;
 public class FunctionType implements Type {
     public final Type paramType;
     public final Type returnType;
+    private final String descriptor;
 
     public FunctionType(final Type paramType,
                         final Type returnType) {
         this.paramType = paramType;
         this.returnType = returnType;
+        descriptor = "(" + paramType.toString() + " => " + returnType.toString() + ")";
     }
 
     @Override
@@ -33,6 +35,6 @@ public class FunctionType implements Type {
 
 		@Override
 		public String toDescriptorString() {
-			 return "(" + paramType.toString() + " => " + returnType.toString() + ")";
+			 return descriptor;
 		}
 } // FunctionType
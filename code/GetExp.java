@@ -1,6 +1,6 @@
 package code;
 
-public class GetExp implements Exp {
+public class GetExp extends Node implements Exp {
     public final Exp target;
     public final ClassName name;
     public final Variable field;
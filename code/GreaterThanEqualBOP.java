@@ -0,0 +1,8 @@
+package code;
+
+public class GreaterThanEqualBOP implements BOP {
+    @Override
+    public String toString() {
+        return ">=";
+    }
+}
@@ -1,5 +1,7 @@
 package code;
 public class GreaterThanEqualToToken implements Token {
+    public static final GreaterThanEqualToToken INSTANCE = new GreaterThanEqualToToken();
+
     public boolean equals(final Object other) {
         return other instanceof GreaterThanEqualToToken;
     }
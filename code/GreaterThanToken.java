@@ -1,5 +1,7 @@
 package code;
 public class GreaterThanToken implements Token {
+    public static final GreaterThanToken INSTANCE = new GreaterThanToken();
+
     public boolean equals(final Object other) {
         return other instanceof GreaterThanToken;
     }
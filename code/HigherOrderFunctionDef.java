@@ -6,7 +6,7 @@ package code;
 // (x: String) => x + 1
 // (x: Int) => x + 1
 //
-public class HigherOrderFunctionDef implements Exp {
+public class HigherOrderFunctionDef extends Node implements Exp {
     public final Variable paramName;
     public final Type paramType;
     public final Exp body;
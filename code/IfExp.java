@@ -1,7 +1,7 @@
 package code;
 // sealed trait Exp
 // case class IfExp(e1: Exp, e2: Exp, e3: Exp) extends Exp
-public class IfExp implements Exp {
+public class IfExp extends Node implements Exp {
     @Override
 	public int hashCode() {
 		final int prime = 31;
@@ -2,7 +2,7 @@ package code;
 
 import java.util.List;
 
-public class IfStmt implements Stmt {
+public class IfStmt extends Node implements Stmt {
     public final Exp guard;
     public final List<Stmt> trueBranch;
     public final List<Stmt> falseBranch;
@@ -1,5 +1,7 @@
 package code;
 public class IfToken implements Token {
+    public static final IfToken INSTANCE = new IfToken();
+
     public boolean equals(final Object other) {
         return other instanceof IfToken;
     }
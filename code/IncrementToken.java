@@ -1,5 +1,7 @@
 package code;
 public class IncrementToken implements Token {
+    public static final IncrementToken INSTANCE = new IncrementToken();
+
     public boolean equals(final Object other) {
         return other instanceof IncrementToken;
     }
@@ -0,0 +1,88 @@
+package code;
+
+// Updates a TokenStream after an edit to its input, lexing only the part the
+// edit could have changed.
+//
+// Lexing starts again at the first token which ends at or after the edit
+// (the lexer looks one character past the end of every token, so a token
+// right up against the edit may have changed too).  Once lexing has passed
+// the end of the edit and a new token starts exactly where some old token
+// started (after shifting by the change in length), everything from there
+// on lexes the same as before, so the old tokens are reused.
+public class IncrementalTokenizer {
+    public static class Result {
+        // ---BEGIN INSTANCE VARIABLES---
+        public final TokenStream tokens;
+        // tokens [firstChanged, oldEnd) of the old stream were replaced by
+        // tokens [firstChanged, newEnd) of the new one; the rest are the same,
+        // apart from having moved
+        public final int firstChanged;
+        public final int oldEnd;
+        public final int newEnd;
+        // ---END INSTANCE VARIABLES---
+
+        public Result(final TokenStream tokens,
+                      final int firstChanged,
+                      final int oldEnd,
+                      final int newEnd) {
+            this.tokens = tokens;
+            this.firstChanged = firstChanged;
+            this.oldEnd = oldEnd;
+            this.newEnd = newEnd;
+        }
+    } // Result
+
+    // the input of old with removedLength characters at offset replaced by
+    // inserted
+    public static char[] applyEdit(final char[] input,
+                                   final int offset,
+                                   final int removedLength,
+                                   final String inserted) {
+        final char[] result = new char[input.length - removedLength + inserted.length()];
+        System.arraycopy(input, 0, result, 0, offset);
+        inserted.getChars(0, inserted.length(), result, offset);
+        System.arraycopy(input, offset + removedLength,
+                         result, offset + inserted.length(),
+                         input.length - offset - removedLength);
+        return result;
+    } // applyEdit
+
+    public static Result relex(final TokenStream old,
+                               final int offset,
+                               final int removedLength,
+                               final String inserted) throws TokenizerException {
+        final char[] input = applyEdit(old.input(), offset, removedLength, inserted);
+        final int shift = inserted.length() - removedLength;
+        // where the edit ends, in the new input
+        final int editEnd = offset + inserted.length();
+
+        final int firstChanged = old.firstEndingAtOrAfter(offset);
+        final int restart = (firstChanged < old.size()) ? Math.min(old.start(firstChanged), offset) : offset;
+
+        final Tokenizer tokenizer = new Tokenizer(input, restart, input.length);
+        final TokenStream relexed = new TokenStream(input);
+        int oldIndex = firstChanged;
+        while (tokenizer.advance()) {
+            final int start = tokenizer.start();
+            if (start >= editEnd) {
+                // skip the old tokens this one has already gone past
+                while (oldIndex < old.size() && old.start(oldIndex) + shift < start) {
+                    oldIndex++;
+                }
+                if (oldIndex < old.size() && old.start(oldIndex) + shift == start) {
+                    return new Result(old.splice(input, firstChanged, oldIndex, relexed, shift),
+                                      firstChanged,
+                                      oldIndex,
+                                      firstChanged + relexed.size());
+                }
+            }
+            relexed.add(tokenizer.kind(), start, tokenizer.length(), tokenizer.value());
+        }
+
+        // never lined up again, so everything from firstChanged on is new
+        return new Result(old.splice(input, firstChanged, old.size(), relexed, shift),
+                          firstChanged,
+                          old.size(),
+                          firstChanged + relexed.size());
+    } // relex
+} // IncrementalTokenizer
@@ -1,5 +1,5 @@
 package code;
-public class InstanceDec implements Exp{
+public class InstanceDec extends Node implements Exp{
 	public final Token access;
 	public final Type type;
 	public final VariableExp name;
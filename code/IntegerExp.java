@@ -1,5 +1,5 @@
 package code;
-public class IntegerExp implements Exp {
+public class IntegerExp extends Node implements Exp {
     public final int value;
 
     public IntegerExp(final int value) {
@@ -1,6 +1,6 @@
 package code;
 
-public class IntegerLiteralExp implements Exp {
+public class IntegerLiteralExp extends Node implements Exp {
     public final int value;
 
     public IntegerLiteralExp(final int value) {
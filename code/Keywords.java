@@ -0,0 +1,86 @@
+package code;
+
+// The reserved words of the language, and the kind of token each one becomes.
+// The words themselves are the names of the kinds TokenKind defines as
+// keywords, so there's one list to keep up to date; the tokenizer asks
+// lookup() about every identifier it reads.
+//
+// Words are bucketed by length, so an identifier is only ever compared against
+// the handful of keywords which have the same length, and each comparison bails
+// out on the first differing character.
+public class Keywords {
+    private static final int[] KINDS = keywordKinds();
+    private static final String[] WORDS = spellings(KINDS);
+
+    // BY_LENGTH[n] holds the indices into WORDS of the keywords with n characters
+    private static final int[][] BY_LENGTH = makeBuckets();
+
+    private static int[] keywordKinds() {
+        int numKeywords = 0;
+        for (int kind = 0; kind < TokenKind.NUM_KINDS; kind++) {
+            if (TokenKind.isKeyword(kind)) {
+                numKeywords++;
+            }
+        }
+        final int[] kinds = new int[numKeywords];
+        numKeywords = 0;
+        for (int kind = 0; kind < TokenKind.NUM_KINDS; kind++) {
+            if (TokenKind.isKeyword(kind)) {
+                kinds[numKeywords++] = kind;
+            }
+        }
+        return kinds;
+    } // keywordKinds
+
+    private static String[] spellings(final int[] kinds) {
+        final String[] words = new String[kinds.length];
+        for (int index = 0; index < kinds.length; index++) {
+            words[index] = TokenKind.name(kinds[index]);
+        }
+        return words;
+    } // spellings
+
+    private static int[][] makeBuckets() {
+        int longest = 0;
+        for (final String word : WORDS) {
+            longest = Math.max(longest, word.length());
+        }
+
+        final int[] bucketSizes = new int[longest + 1];
+        for (final String word : WORDS) {
+            bucketSizes[word.length()]++;
+        }
+
+        final int[][] buckets = new int[longest + 1][];
+        for (int length = 0; length <= longest; length++) {
+            buckets[length] = new int[bucketSizes[length]];
+            bucketSizes[length] = 0;
+        }
+        for (int index = 0; index < WORDS.length; index++) {
+            final int length = WORDS[index].length();
+            buckets[length][bucketSizes[length]++] = index;
+        }
+        return buckets;
+    } // makeBuckets
+
+    // returns the kind of token spelled by input[start, start + length), which
+    // is TokenKind.VARIABLE if those characters aren't a keyword
+    public static int lookup(final char[] input,
+                               final int start,
+                               final int length) {
+        if (length >= BY_LENGTH.length) {
+            return TokenKind.VARIABLE;
+        }
+        for (final int candidate : BY_LENGTH[length]) {
+            final String word = WORDS[candidate];
+            int index = 0;
+            while (index < length && input[start + index] == word.charAt(index)) {
+                index++;
+            }
+            if (index == length) {
+                return KINDS[candidate];
+            }
+        }
+        return TokenKind.VARIABLE;
+    } // lookup
+} // Keywords
@@ -1,6 +1,6 @@
 package code;
 
-public class LambdaCallExp implements Exp {
+public class LambdaCallExp extends Node implements Exp {
     public final Exp lambda;
     public final ReferenceType returnType;
     public final Exp param;
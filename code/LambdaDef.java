@@ -35,13 +35,13 @@ public class LambdaDef {
     } // LambdaDef
 
     public String toSignatureString() {
-        return (new ReferenceType(new ClassName(ClassGenerator.objectName)).toSignatureString() +
-                new LambdaType(paramType, returnType).toSignatureString());
+        return (Types.OBJECT.toSignatureString() +
+                Types.lambda(paramType, returnType).toSignatureString());
     } // toSignatureString
 
     public String constructorDescriptorString() {
         return Callable.toDescriptorString(instanceVariables,
-                                           new VoidType());
+                                           Types.VOID);
     } // constructorDescriptorString
 
     public String fieldDescriptorString(final Variable fieldName) throws CodeGeneratorException {
@@ -59,8 +59,7 @@ public class LambdaDef {
 
     public static String bridgeApplyDescriptorString() {
         final List<FormalParam> objectFormalParams = new ArrayList<FormalParam>();
-        final ReferenceType objectType =
-            new ReferenceType(new ClassName(ClassGenerator.objectName));
+        final ReferenceType objectType = Types.OBJECT;
         objectFormalParams.add(new FormalParam(objectType, new Variable("")));
         return Callable.toDescriptorString(objectFormalParams, objectType);
     } // bridgeApplyDescriptorString
@@ -110,7 +109,7 @@ public class LambdaDef {
         final ExpressionStatementGenerator gen =
             new ExpressionStatementGenerator(allClasses,
                                              lambdaMaker,
-                                             VariableTable.withFormalParams(new ReferenceType(className),
+                                             VariableTable.withFormalParams(Types.reference(className),
                                                                             formalParams),
                                              methodVisitor);
         gen.writeExpression(body);
@@ -1,6 +1,6 @@
 package code;
 
-public class LambdaExp implements Exp {
+public class LambdaExp extends Node implements Exp {
     public final ReferenceType paramType;
     public final Variable param;
     public final ReferenceType returnType;
@@ -200,7 +200,7 @@ public class LambdaMaker {
             // I *think* this should just be `this`, but that means that
             // we need to properly handle naming `this`
             return translateLambda((LambdaExp)body,
-                                   VariableTable.withFormalParam(new ReferenceType(lambdaClass),
+                                   VariableTable.withFormalParam(Types.reference(lambdaClass),
                                                                  lambdaParamType,
                                                                  lambdaParam));
         } else if (body instanceof LambdaCallExp) {
@@ -3,12 +3,14 @@ package code;
 public class LambdaType extends ReferenceType {
     public final ReferenceType paramType;
     public final ReferenceType returnType;
+    private final String signature;
 
     public LambdaType(final ReferenceType paramType,
                       final ReferenceType returnType) {
         super(new ClassName("Function1"));
         this.paramType = paramType;
         this.returnType = returnType;
+        signature = "LFunction1<" + paramType.toSignatureString() + returnType.toSignatureString() + ">;";
     }
 
     @Override
@@ -34,7 +36,7 @@ public class LambdaType extends ReferenceType {
 
     @Override
     public String toSignatureString() {
-        return "LFunction1<" + paramType.toSignatureString() + returnType.toSignatureString() + ">;";
+        return signature;
     }
 } // LambdaType
 
@@ -0,0 +1,136 @@
+package code;
+
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// The body of a method which hasn't been parsed yet: just where its tokens
+// are, and what the parser needs to know to parse them later.  It's parsed
+// the first time anything asks for its statements or its returned
+// expression, giving exactly what parsing it up front would have.
+//
+// The statements are a List, so code which walks Callable.body needn't
+// know whether it's lazy.  A List can't throw a ParseException, so a body
+// which doesn't parse throws an IllegalStateException with the
+// ParseException as its cause; call materialize() to get the
+// ParseException itself.
+public class LazyBody {
+    // What the parser needs to parse the body.  None of it changes, so the
+    // parser can read it without holding the LazyBody's lock.
+    public static class Source {
+        // ---BEGIN INSTANCE VARIABLES---
+        public final TokenStream tokens;
+        // the tokens from the body's '{' up to just after its '}'
+        public final int from;
+        public final int to;
+        public final ClassName inClass;
+        public final Map<String, Type> fieldTypes;
+        public final Type returnType;
+        public final MethodName name;
+        public final List<FormalParam> formalParams;
+        // ---END INSTANCE VARIABLES---
+
+        public Source(final TokenStream tokens,
+                      final int from,
+                      final int to,
+                      final ClassName inClass,
+                      final Map<String, Type> fieldTypes,
+                      final Type returnType,
+                      final MethodName name,
+                      final List<FormalParam> formalParams) {
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+            this.inClass = inClass;
+            this.fieldTypes = Collections.unmodifiableMap(fieldTypes);
+            this.returnType = returnType;
+            this.name = name;
+            this.formalParams = Collections.unmodifiableList(formalParams);
+        }
+    } // Source
+
+    // ---BEGIN INSTANCE VARIABLES---
+    private final Type returnType;
+    private final MethodName name;
+    private final List<FormalParam> formalParams;
+    // dropped once the body is parsed
+    private Source source;
+
+    // null until parsed
+    private List<Stmt> stmts;
+    private Exp returned;
+    // ---END INSTANCE VARIABLES---
+
+    public LazyBody(final TokenStream tokens,
+                    final int from,
+                    final int to,
+                    final ClassName inClass,
+                    final Map<String, Type> fieldTypes,
+                    final Type returnType,
+                    final MethodName name,
+                    final List<FormalParam> formalParams) {
+        source = new Source(tokens, from, to, inClass, fieldTypes, returnType, name, formalParams);
+        this.returnType = returnType;
+        this.name = name;
+        this.formalParams = source.formalParams;
+    }
+
+    public Type getReturnType() {
+        return returnType;
+    } // getReturnType
+
+    public MethodName getName() {
+        return name;
+    } // getName
+
+    public List<FormalParam> getFormalParams() {
+        return formalParams;
+    } // getFormalParams
+
+    public synchronized boolean isMaterialized() {
+        return stmts != null;
+    } // isMaterialized
+
+    // parses the body, if that hasn't been done already
+    public synchronized void materialize() throws ParseException {
+        if (stmts == null) {
+            final MethodDefinition parsed = new Parser(source.tokens, source.from, source.to).parseLazyBody(source);
+            stmts = parsed.body;
+            returned = parsed.getReturned();
+            source = null;
+        }
+    } // materialize
+
+    private void materializeUnchecked() {
+        try {
+            materialize();
+        } catch (final ParseException e) {
+            throw new IllegalStateException("Could not parse the body of " + name + ": " + e.getMessage(), e);
+        }
+    } // materializeUnchecked
+
+    public synchronized List<Stmt> stmts() {
+        materializeUnchecked();
+        return stmts;
+    } // stmts
+
+    public synchronized Exp returned() {
+        materializeUnchecked();
+        return returned;
+    } // returned
+
+    // a view of the statements which parses them when first looked at
+    public List<Stmt> statements() {
+        return new AbstractList<Stmt>() {
+            public Stmt get(final int index) {
+                return stmts().get(index);
+            }
+
+            public int size() {
+                return stmts().size();
+            }
+        };
+    } // statements
+} // LazyBody
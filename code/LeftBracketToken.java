@@ -1,5 +1,7 @@
 package code;
 public class LeftBracketToken implements Token {
+  public static final LeftBracketToken INSTANCE = new LeftBracketToken();
+
   public boolean equals(final Object other) {
     return other instanceof LeftBracketToken;
 }
@@ -1,5 +1,7 @@
 package code;
 public class LeftParenToken implements Token {
+    public static final LeftParenToken INSTANCE = new LeftParenToken();
+
     public boolean equals(final Object other) {
         return other instanceof LeftParenToken;
     }
@@ -0,0 +1,8 @@
+package code;
+
+public class LessThanEqualBOP implements BOP {
+    @Override
+    public String toString() {
+        return "<=";
+    }
+}
@@ -1,5 +1,7 @@
 package code;
 public class LessThanEqualToToken implements Token {
+    public static final LessThanEqualToToken INSTANCE = new LessThanEqualToToken();
+
     public boolean equals(final Object other) {
         return other instanceof LessThanEqualToToken;
     }
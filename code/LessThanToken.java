@@ -1,5 +1,7 @@
 package code;
 public class LessThanToken implements Token {
+    public static final LessThanToken INSTANCE = new LessThanToken();
+
     public boolean equals(final Object other) {
         return other instanceof LessThanToken;
     }
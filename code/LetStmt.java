@@ -1,5 +1,5 @@
 package code;
-public class LetStmt implements Stmt {
+public class LetStmt extends Node implements Stmt {
     public final Variable x;
     public final Type tau;
     public final Exp e;
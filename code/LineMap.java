@@ -0,0 +1,62 @@
+package code;
+
+import java.util.Arrays;
+
+// Turns character offsets into lines and columns.  Tokens and nodes only
+// record offsets, which cost nothing extra to keep; the line starts are found
+// with one pass over the input the first time a line is actually needed
+// (for an error message, or for line numbers in generated code).
+//
+// Lines and columns both count from 1.
+public class LineMap {
+    // ---BEGIN INSTANCE VARIABLES---
+    // lineStarts[i] is the offset of the first character of line i + 1
+    private final int[] lineStarts;
+    private final int numLines;
+    // ---END INSTANCE VARIABLES---
+
+    public LineMap(final char[] input, final int length) {
+        int[] starts = new int[16];
+        int count = 1;
+        starts[0] = 0;
+        for (int index = 0; index < length; index++) {
+            if (input[index] == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = index + 1;
+            }
+        }
+        lineStarts = starts;
+        numLines = count;
+    }
+
+    public LineMap(final char[] input) {
+        this(input, input.length);
+    }
+
+    public int line(final int offset) {
+        // the last line starting at or before offset
+        int low = 0;
+        int high = numLines - 1;
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (lineStarts[middle] <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low + 1;
+    } // line
+
+    public int column(final int offset) {
+        return offset - lineStarts[line(offset) - 1] + 1;
+    } // column
+
+    // for error messages
+    public String describe(final int offset) {
+        final int line = line(offset);
+        return "line " + line + ", column " + (offset - lineStarts[line - 1] + 1);
+    } // describe
+} // LineMap
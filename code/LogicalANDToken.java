@@ -1,5 +1,7 @@
 package code;
 public class LogicalANDToken implements Token {
+    public static final LogicalANDToken INSTANCE = new LogicalANDToken();
+
     public boolean equals(final Object other) {
         return other instanceof LogicalANDToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class LogicalNOTToken implements Token {
+    public static final LogicalNOTToken INSTANCE = new LogicalNOTToken();
+
     public boolean equals(final Object other) {
         return other instanceof LogicalNOTToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class LogicalORToken implements Token {
+    public static final LogicalORToken INSTANCE = new LogicalORToken();
+
     public boolean equals(final Object other) {
         return other instanceof LogicalORToken;
     }
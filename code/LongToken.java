@@ -0,0 +1,19 @@
+package code;
+// An integer literal too big for an int
+public class LongToken implements Token {
+    public final long value;
+
+    public LongToken(final long value) {
+        this.value = value;
+    }
+
+    public boolean equals(final Object other) {
+        if (other instanceof LongToken) {
+            final LongToken otherLong = (LongToken)other;
+            return value == otherLong.value;
+        } else {
+            return false;
+        }
+    }
+
+}
@@ -8,7 +8,7 @@ public class MainDefinition extends Callable {
         super(new MethodName("main"),
               new ArrayList<FormalParam>(),
               body,
-              new VoidType());
+              Types.VOID);
     }
 
     // TODO: very hacky
@@ -2,7 +2,7 @@ package code;
 
 import java.util.List;
 
-public class MethodCallExp implements Exp {
+public class MethodCallExp extends Node implements Exp {
     public final Exp callOn;
     public final ClassName callOnName;
     public final MethodName name;
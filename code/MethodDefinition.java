@@ -4,7 +4,9 @@ import java.util.List;
 
 public class MethodDefinition extends Callable {
     public final MethodName name;
-    public final Exp returned;
+    // null if lazyBody isn't; then the body and returned come from parsing it
+    private final Exp returned;
+    private final LazyBody lazyBody;
 
     public MethodDefinition(final Type returnType,
                             final MethodName name,
@@ -14,8 +16,26 @@ public class MethodDefinition extends Callable {
         super(name, formalParams, body, returnType);
         this.name = name;
         this.returned = returned;
+        this.lazyBody = null;
     }
 
+    // a method whose body hasn't been parsed yet; see LazyBody
+    public MethodDefinition(final LazyBody lazyBody) {
+        super(lazyBody.getName(), lazyBody.getFormalParams(), lazyBody.statements(), lazyBody.getReturnType());
+        this.name = lazyBody.getName();
+        this.returned = null;
+        this.lazyBody = lazyBody;
+    }
+
+    public Exp getReturned() {
+        return (lazyBody == null) ? returned : lazyBody.returned();
+    } // getReturned
+
+    // null if the body was parsed along with everything else
+    public LazyBody getLazyBody() {
+        return lazyBody;
+    } // getLazyBody
+
     public static String formalParamsToString(final List<FormalParam> formalParams) {
         final StringBuffer result = new StringBuffer();
         for (final FormalParam param : formalParams) {
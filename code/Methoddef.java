@@ -1,5 +1,5 @@
 package code;
-public class Methoddef implements Exp{
+public class Methoddef extends Node implements Exp{
 	public final Token access;
 	public final Type type;
 	public final String name;
@@ -1,5 +1,7 @@
 package code;
 public class ModuloToken implements Token {
+    public static final ModuloToken INSTANCE = new ModuloToken();
+
     public boolean equals(final Object other) {
         return other instanceof ModuloToken;
     }
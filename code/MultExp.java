@@ -1,5 +1,5 @@
 package code;
-public class MultExp implements Exp{
+public class MultExp extends Node implements Exp{
 	public final Exp left;
   public final Exp right;
 
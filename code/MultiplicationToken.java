@@ -1,5 +1,7 @@
 package code;
 public class MultiplicationToken implements Token {
+    public static final MultiplicationToken INSTANCE = new MultiplicationToken();
+
     public boolean equals(final Object other) {
         return other instanceof MultiplicationToken;
     }
@@ -2,7 +2,7 @@ package code;
 
 import java.util.List;
 
-public class NewExp implements Exp {
+public class NewExp extends Node implements Exp {
     public final ClassName name;
     public final List<Exp> actualParams;
 
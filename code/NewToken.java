@@ -1,5 +1,7 @@
 package code;
 public class NewToken implements Token {
+    public static final NewToken INSTANCE = new NewToken();
+
     public boolean equals(final Object other) {
         return other instanceof NewToken;
     }
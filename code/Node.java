@@ -0,0 +1,26 @@
+package code;
+
+// Base class of every expression and statement.  Holds where in the source
+// the node starts, as a character offset into the input; LineMap turns that
+// into a line and column when one is needed.  Nodes built by hand rather than
+// by the parser have NO_POSITION.
+//
+// The position plays no part in equals or hashCode, so a parsed tree still
+// equals the same tree built by hand.
+public abstract class Node {
+    // ---BEGIN CONSTANTS---
+    public static final int NO_POSITION = -1;
+    // ---END CONSTANTS---
+
+    // ---BEGIN INSTANCE VARIABLES---
+    private int position = NO_POSITION;
+    // ---END INSTANCE VARIABLES---
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(final int position) {
+        this.position = position;
+    }
+} // Node
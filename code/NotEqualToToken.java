@@ -1,5 +1,7 @@
 package code;
 public class NotEqualToToken implements Token {
+    public static final NotEqualToToken INSTANCE = new NotEqualToToken();
+
     public boolean equals(final Object other) {
         return other instanceof NotEqualToToken;
     }
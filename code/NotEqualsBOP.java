@@ -0,0 +1,8 @@
+package code;
+
+public class NotEqualsBOP implements BOP {
+    @Override
+    public String toString() {
+        return "!=";
+    }
+}
@@ -0,0 +1,150 @@
+package code;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Parses programs with many classes on several threads.  A quick pass over
+// the tokens matches up braces to find where each top-level class starts
+// and ends; classes don't depend on each other, so runs of them are parsed
+// as separate tasks and the results put back together in source order.
+//
+// Gives the same Program, and the same error, as Parser.parseProgram.  A
+// syntax error inside a chunk is reported as it is; the program is only
+// parsed again sequentially when the chunks themselves may be wrong: braces
+// which don't match, or a class which doesn't end where they said it would.
+public class ParallelParser {
+    // ---BEGIN CONSTANTS---
+    // fewer tokens than this aren't worth handing to another thread
+    public static final int MIN_CHUNK_SIZE = 1 << 12;
+    // chunks per thread, so one slow chunk doesn't hold everyone up
+    public static final int CHUNKS_PER_THREAD = 4;
+    // ---END CONSTANTS---
+
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final TokenStream tokens;
+        private final int from;
+        private final int to;
+        private List<ClassDefinition> result;
+        private ParseException error;
+
+        public Chunk(final TokenStream tokens, final int from, final int to) {
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            try {
+                result = new Parser(tokens, from, to).parseClasses(from, to);
+            } catch (final ParseException e) {
+                error = e;
+            }
+        }
+    } // Chunk
+
+    // Where each top-level class starts, followed by tokens.size().  null if
+    // the tokens aren't a sequence of classes with matching braces.
+    public static int[] classBoundaries(final TokenStream tokens) {
+        int[] result = new int[16];
+        int numClasses = 0;
+        int depth = 0;
+        for (int index = 0; index < tokens.size(); index++) {
+            final int kind = tokens.kind(index);
+            if (depth == 0 && kind == TokenKind.CLASS) {
+                if (numClasses + 1 == result.length) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                result[numClasses++] = index;
+            } else if (depth == 0 && numClasses == 0) {
+                return null;
+            }
+
+            if (kind == TokenKind.LEFT_BRACKET) {
+                depth++;
+            } else if (kind == TokenKind.RIGHT_BRACKET) {
+                if (depth == 0) {
+                    return null;
+                }
+                depth--;
+            }
+        }
+        if (depth != 0) {
+            return null;
+        }
+        result[numClasses] = tokens.size();
+        return Arrays.copyOf(result, numClasses + 1);
+    } // classBoundaries
+
+    public static Program parseProgram(final TokenStream tokens,
+                                       final String sourceFile,
+                                       final ForkJoinPool pool) throws ParseException {
+        final int[] classes = classBoundaries(tokens);
+        final int numClasses = (classes == null) ? 0 : classes.length - 1;
+        final int numChunks = Math.min(Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                                                tokens.size() / MIN_CHUNK_SIZE),
+                                       numClasses);
+        if (pool.getParallelism() < 2 || numChunks < 2) {
+            return new Parser(tokens).parseProgram(sourceFile);
+        }
+
+        // cut between classes, as near as possible to equal numbers of tokens
+        final Chunk[] chunks = new Chunk[numChunks];
+        int firstClass = 0;
+        for (int index = 0; index < numChunks; index++) {
+            // leaving at least one class for each chunk still to come
+            final int lastEnd = numClasses - (numChunks - 1 - index);
+            final long target = (long)tokens.size() * (index + 1) / numChunks;
+            int endClass = firstClass + 1;
+            while (endClass < lastEnd && classes[endClass] < target) {
+                endClass++;
+            }
+            chunks[index] = new Chunk(tokens, classes[firstClass], classes[endClass]);
+            pool.execute(chunks[index]);
+            firstClass = endClass;
+        }
+
+        final List<ClassDefinition> classDefs = new ArrayList<ClassDefinition>(numClasses);
+        Chunk firstFailed = null;
+        for (final Chunk chunk : chunks) {
+            chunk.join();
+            if (firstFailed == null) {
+                if (chunk.error != null) {
+                    firstFailed = chunk;
+                } else {
+                    classDefs.addAll(chunk.result);
+                }
+            }
+        }
+        if (firstFailed != null) {
+            // Every chunk before this one parsed and ended exactly on its
+            // boundary, so the sequential parser would get here in the same
+            // state, and an error before the chunk's end is the one it would
+            // throw.  Offsets and positions are already of the whole token
+            // stream.  An error at or past the end means the parser and the
+            // brace matching disagree about where a class ends, so the
+            // boundaries can't be trusted; parse again to get the real error.
+            if (firstFailed.error.getErrorOffset() < firstFailed.to) {
+                throw firstFailed.error;
+            }
+            return new Parser(tokens).parseProgram(sourceFile);
+        }
+        return new Program(new ArrayList<FirstOrderFunctionDefinition>(),
+                           classDefs,
+                           sourceFile,
+                           tokens.lineMap());
+    } // parseProgram
+
+    public static Program parseProgram(final TokenStream tokens, final String sourceFile) throws ParseException {
+        return parseProgram(tokens, sourceFile, ForkJoinPool.commonPool());
+    } // parseProgram
+
+    public static Program parseProgram(final TokenStream tokens) throws ParseException {
+        return parseProgram(tokens, null);
+    } // parseProgram
+} // ParallelParser
@@ -0,0 +1,96 @@
+package code;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Tokenizes large inputs on several threads.  The input is cut into chunks
+// at whitespace, which can never be part of a token, so each chunk lexes to
+// exactly the tokens the whole input would have there.  The chunks' streams
+// are then joined back together in order.
+//
+// Gives the same tokens as Tokenizer, and the same error if there is one:
+// the first chunk in the input with a bad token is the one reported.
+public class ParallelTokenizer {
+    // ---BEGIN CONSTANTS---
+    // smaller chunks than this aren't worth handing to another thread
+    public static final int MIN_CHUNK_SIZE = 1 << 16;
+    // chunks per thread, so one slow chunk doesn't hold everyone up
+    public static final int CHUNKS_PER_THREAD = 4;
+    // ---END CONSTANTS---
+
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final char[] input;
+        private final int from;
+        private final int to;
+        private TokenStream result;
+        private TokenizerException error;
+
+        public Chunk(final char[] input, final int from, final int to) {
+            this.input = input;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            try {
+                result = new Tokenizer(input, from, to).tokenizeToStream();
+            } catch (final TokenizerException e) {
+                error = e;
+            }
+        }
+    } // Chunk
+
+    // Where to cut input into numChunks pieces: chunk i is
+    // input[result[i], result[i + 1]).  Every cut after the first is at
+    // whitespace, or at the end of the input.
+    public static int[] boundaries(final char[] input, final int numChunks) {
+        final int[] result = new int[numChunks + 1];
+        result[0] = 0;
+        for (int chunk = 1; chunk < numChunks; chunk++) {
+            int position = Math.max((int)((long)input.length * chunk / numChunks), result[chunk - 1]);
+            while (position < input.length && !Character.isWhitespace(input[position])) {
+                position++;
+            }
+            result[chunk] = position;
+        }
+        result[numChunks] = input.length;
+        return result;
+    } // boundaries
+
+    public static TokenStream tokenizeToStream(final char[] input,
+                                               final ForkJoinPool pool) throws TokenizerException {
+        final int numChunks = Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                                       input.length / MIN_CHUNK_SIZE);
+        if (pool.getParallelism() < 2 || numChunks < 2) {
+            return new Tokenizer(input).tokenizeToStream();
+        }
+
+        final int[] cuts = boundaries(input, numChunks);
+        final Chunk[] chunks = new Chunk[numChunks];
+        for (int index = 0; index < numChunks; index++) {
+            chunks[index] = new Chunk(input, cuts[index], cuts[index + 1]);
+            pool.execute(chunks[index]);
+        }
+
+        final TokenStream[] parts = new TokenStream[numChunks];
+        for (int index = 0; index < numChunks; index++) {
+            chunks[index].join();
+            if (chunks[index].error != null) {
+                throw chunks[index].error;
+            }
+            parts[index] = chunks[index].result;
+        }
+        return TokenStream.concat(input, parts);
+    } // tokenizeToStream
+
+    public static TokenStream tokenizeToStream(final char[] input) throws TokenizerException {
+        return tokenizeToStream(input, ForkJoinPool.commonPool());
+    } // tokenizeToStream
+
+    public static List<Token> tokenize(final char[] input) throws TokenizerException {
+        return tokenizeToStream(input).toTokens();
+    } // tokenize
+} // ParallelTokenizer
@@ -0,0 +1,133 @@
+package code;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Typechecks programs with many functions on several threads.  Checking a
+// function only reads the Typechecker's table of function definitions, and
+// types and environments are immutable, so runs of functions are checked
+// as separate tasks against one shared Typechecker.
+//
+// Every function is checked, even after one fails.  If any fail, the error
+// thrown is the one typecheckProgram would throw, from the first function
+// in source order which doesn't typecheck; the errors from later functions
+// are attached to it as suppressed exceptions, in source order.  This is the
+// same however many threads there are.
+public class ParallelTypechecker {
+    // ---BEGIN CONSTANTS---
+    // fewer statements than this aren't worth handing to another thread
+    public static final int MIN_CHUNK_SIZE = 1 << 9;
+    // chunks per thread, so one slow chunk doesn't hold everyone up
+    public static final int CHUNKS_PER_THREAD = 4;
+    // ---END CONSTANTS---
+
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Typechecker typechecker;
+        private final List<FirstOrderFunctionDefinition> functions;
+        private final int from;
+        private final int to;
+        private final List<IllTypedException> errors;
+
+        public Chunk(final Typechecker typechecker,
+                     final List<FirstOrderFunctionDefinition> functions,
+                     final int from,
+                     final int to) {
+            this.typechecker = typechecker;
+            this.functions = functions;
+            this.from = from;
+            this.to = to;
+            errors = new ArrayList<IllTypedException>();
+        }
+
+        protected void compute() {
+            typecheckFunctions(typechecker, functions, from, to, errors);
+        }
+    } // Chunk
+
+    // checks functions[from, to), adding an error for each that fails
+    private static void typecheckFunctions(final Typechecker typechecker,
+                                           final List<FirstOrderFunctionDefinition> functions,
+                                           final int from,
+                                           final int to,
+                                           final List<IllTypedException> errors) {
+        for (int index = from; index < to; index++) {
+            try {
+                typechecker.typecheckFunction(functions.get(index));
+            } catch (final IllTypedException e) {
+                errors.add(e);
+            }
+        }
+    } // typecheckFunctions
+
+    private static void throwFirst(final List<IllTypedException> errors) throws IllTypedException {
+        if (!errors.isEmpty()) {
+            final IllTypedException first = errors.get(0);
+            for (int index = 1; index < errors.size(); index++) {
+                first.addSuppressed(errors.get(index));
+            }
+            throw first;
+        }
+    } // throwFirst
+
+    // how much work checking function is, near enough
+    private static int size(final FirstOrderFunctionDefinition function) {
+        return function.body.size() + 1;
+    } // size
+
+    public static void typecheckProgram(final Typechecker typechecker,
+                                        final Program program,
+                                        final ForkJoinPool pool) throws IllTypedException {
+        final List<FirstOrderFunctionDefinition> functions = program.functions;
+        long totalSize = 0;
+        for (final FirstOrderFunctionDefinition function : functions) {
+            totalSize += size(function);
+        }
+        final int numChunks = (int)Math.min(Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                                                     totalSize / MIN_CHUNK_SIZE),
+                                            functions.size());
+        if (pool.getParallelism() < 2 || numChunks < 2) {
+            final List<IllTypedException> errors = new ArrayList<IllTypedException>();
+            typecheckFunctions(typechecker, functions, 0, functions.size(), errors);
+            throwFirst(errors);
+            return;
+        }
+
+        // cut between functions, as near as possible to equal amounts of work
+        final Chunk[] chunks = new Chunk[numChunks];
+        int firstFunction = 0;
+        long sizeSoFar = 0;
+        for (int index = 0; index < numChunks; index++) {
+            // leaving at least one function for each chunk still to come
+            final int lastEnd = functions.size() - (numChunks - 1 - index);
+            final long target = totalSize * (index + 1) / numChunks;
+            int endFunction = firstFunction;
+            do {
+                sizeSoFar += size(functions.get(endFunction));
+                endFunction++;
+            } while (endFunction < lastEnd && sizeSoFar < target);
+            chunks[index] = new Chunk(typechecker, functions, firstFunction, endFunction);
+            pool.execute(chunks[index]);
+            firstFunction = endFunction;
+        }
+
+        final List<IllTypedException> errors = new ArrayList<IllTypedException>();
+        for (final Chunk chunk : chunks) {
+            chunk.join();
+            errors.addAll(chunk.errors);
+        }
+        throwFirst(errors);
+    } // typecheckProgram
+
+    public static void typecheckProgram(final Program program,
+                                        final ForkJoinPool pool) throws IllTypedException {
+        typecheckProgram(new Typechecker(program), program, pool);
+    } // typecheckProgram
+
+    public static void typecheckProgram(final Program program) throws IllTypedException {
+        typecheckProgram(program, ForkJoinPool.commonPool());
+    } // typecheckProgram
+} // ParallelTypechecker
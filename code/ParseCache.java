@@ -0,0 +1,214 @@
+package code;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Remembers the programs parsed from source files, by a SHA-256 hash of the
+// source bytes, so a file which hasn't changed since it was last compiled
+// skips tokenizing and parsing altogether.
+//
+// The least recently used programs are dropped once the cache holds more
+// than maxBytes.  A program's size is estimated from how many tokens it
+// had, since working out what a tree really occupies would cost about as
+// much as building it.
+//
+// Cached programs are shared between everyone who parses the same source,
+// so nothing may change them.  Nothing after the parser does.  Source which
+// doesn't parse isn't cached.  Safe to use from several threads; two
+// threads missing on the same source at once both parse it.
+public class ParseCache {
+    // ---BEGIN CONSTANTS---
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    // roughly what a tree and its line map hold on to per token
+    public static final int BYTES_PER_TOKEN = 64;
+    // for the key, the map entry and the Program itself
+    public static final int BYTES_PER_ENTRY = 256;
+    // ---END CONSTANTS---
+
+    private static class Key {
+        private final byte[] hash;
+        private final int hashCode;
+
+        public Key(final byte[] hash) {
+            this.hash = hash;
+            hashCode = Arrays.hashCode(hash);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(final Object other) {
+            return other instanceof Key && Arrays.equals(hash, ((Key)other).hash);
+        }
+    } // Key
+
+    private static class Entry {
+        public final Program program;
+        public final long bytes;
+
+        public Entry(final Program program, final long bytes) {
+            this.program = program;
+            this.bytes = bytes;
+        }
+    } // Entry
+
+    // ---BEGIN INSTANCE VARIABLES---
+    private final long maxBytes;
+    // in order of use, least recent first
+    private final LinkedHashMap<Key, Entry> entries;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    // ---END INSTANCE VARIABLES---
+
+    public ParseCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+        entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+        bytes = 0;
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public ParseCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    private static byte[] sha256(final byte[] source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform has to have SHA-256
+            throw new IllegalStateException("SHA-256 isn't available", e);
+        }
+    } // sha256
+
+    // The program in utf8, parsed as by Parser.parseProgram(sourceFile), or
+    // what it parsed to last time
+    public Program parse(final byte[] utf8, final String sourceFile) throws TokenizerException, ParseException {
+        final Key key = new Key(sha256(utf8));
+        final Program cached = lookup(key);
+        if (cached != null) {
+            if (sourceFile == null ? cached.sourceFile == null : sourceFile.equals(cached.sourceFile)) {
+                return cached;
+            }
+            // the same source under another name
+            return new Program(cached.functions, cached.classDefs, sourceFile, cached.lines);
+        }
+
+        // UTF-8 never has more characters than bytes, so this decodes into
+        // the one array the tokenizer then reads, with no copy to trim it
+        final char[] chars = new char[utf8.length];
+        final CharBuffer decoded = CharBuffer.wrap(chars);
+        try {
+            final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+            CoderResult result = decoder.decode(ByteBuffer.wrap(utf8), decoded, true);
+            if (!result.isError()) {
+                result = decoder.flush(decoded);
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+        } catch (final CharacterCodingException e) {
+            throw new TokenizerException("Source isn't valid UTF-8: " + e.getMessage(), e);
+        }
+        final TokenStream tokens = new Tokenizer(chars, 0, decoded.position()).tokenizeToStream();
+        final Program program = new Parser(tokens).parseProgram(sourceFile);
+        store(key, program, (long)tokens.size() * BYTES_PER_TOKEN + BYTES_PER_ENTRY);
+        return program;
+    } // parse
+
+    public Program parse(final String source, final String sourceFile) throws TokenizerException, ParseException {
+        return parse(source.getBytes(StandardCharsets.UTF_8), sourceFile);
+    } // parse
+
+    // The file is expected to be UTF-8; its name is the source file.  It's
+    // read whole, since the hash needs every byte before we know whether
+    // there's anything to parse.  Tokenizer.forFile can't be used instead:
+    // it streams, and tokenizeToStream, which the parser needs, throws
+    // IllegalStateException on a streaming tokenizer.
+    public Program parse(final Path path) throws IOException, TokenizerException, ParseException {
+        return parse(Files.readAllBytes(path), path.getFileName().toString());
+    } // parse
+
+    private synchronized Program lookup(final Key key) {
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        } else {
+            hits++;
+            return entry.program;
+        }
+    } // lookup
+
+    private synchronized void store(final Key key, final Program program, final long size) {
+        if (size > maxBytes) {
+            // would only push everything else out
+            return;
+        }
+        final Entry old = entries.put(key, new Entry(program, size));
+        if (old != null) {
+            bytes -= old.bytes;
+        }
+        bytes += size;
+
+        final Iterator<Map.Entry<Key, Entry>> leastRecent = entries.entrySet().iterator();
+        while (bytes > maxBytes) {
+            bytes -= leastRecent.next().getValue().bytes;
+            leastRecent.remove();
+            evictions++;
+        }
+    } // store
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    } // clear
+
+    // ---BEGIN STATISTICS---
+    public synchronized long hits() {
+        return hits;
+    } // hits
+
+    public synchronized long misses() {
+        return misses;
+    } // misses
+
+    public synchronized long evictions() {
+        return evictions;
+    } // evictions
+
+    // the estimated size of everything cached
+    public synchronized long bytes() {
+        return bytes;
+    } // bytes
+
+    public synchronized int size() {
+        return entries.size();
+    } // size
+
+    public long maxBytes() {
+        return maxBytes;
+    } // maxBytes
+    // ---END STATISTICS---
+} // ParseCache
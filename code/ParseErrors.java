@@ -0,0 +1,36 @@
+package code;
+
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.List;
+
+// Every syntax error found in one pass by Parser.parseProgramRecovering, in
+// source order.  It's a ParseException itself, standing for the first of
+// them, so callers which only want one error needn't know about the rest.
+public class ParseErrors extends ParseException {
+    private static final long serialVersionUID = 1L;
+
+    // ---BEGIN INSTANCE VARIABLES---
+    public final List<ParseException> errors;
+    // true if parsing stopped at the cap, so there may be more
+    public final boolean truncated;
+    // ---END INSTANCE VARIABLES---
+
+    public ParseErrors(final List<ParseException> errors, final boolean truncated) {
+        super(describe(errors, truncated), errors.get(0).getErrorOffset());
+        this.errors = Collections.unmodifiableList(errors);
+        this.truncated = truncated;
+    }
+
+    private static String describe(final List<ParseException> errors, final boolean truncated) {
+        final StringBuilder result = new StringBuilder();
+        result.append(errors.size()).append((errors.size() == 1) ? " syntax error" : " syntax errors");
+        if (truncated) {
+            result.append(" (stopped at the limit)");
+        }
+        for (final ParseException error : errors) {
+            result.append("\n  ").append(error.getMessage());
+        }
+        return result.toString();
+    } // describe
+} // ParseErrors
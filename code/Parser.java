@@ -1,183 +1,1431 @@
 package code;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
 import java.text.ParseException;
 
 public class Parser {
-	private final Token[] tokens;
+	// Nesting deeper than this is parsed with an explicit stack rather than
+	// by recursion, so deeply nested input can't overflow the Java stack.
+	public static final int DEFAULT_MAX_RECURSION_DEPTH = 256;
+	// parseProgramRecovering gives up after this many errors
+	public static final int DEFAULT_MAX_ERRORS = 100;
+
+	// ---BEGIN MEMO RULES---
+	// Rules whose results are memoized, by where they start.  Leaves aren't:
+	// they're no more work to parse again than to look up.
+	private static final int EXP = 0;
+	// parenthesized primaries
+	private static final int PRIMARY = 1;
+	private static final int NUM_RULES = 2;
+	// ---END MEMO RULES---
+
+	private final TokenStream tokens;
+	private final int maxRecursionDepth;
+	// how many calls to parseExp are on the Java stack
+	private int depth;
+	// The cursor: the next token to parse.  Each rule starts at pos, leaves
+	// it just after whatever it parsed, and returns the node itself, so
+	// nothing besides the tree is allocated to say where parsing got to.
+	private int pos;
+
+	// Packrat memo table: rule r starting at token p is entry
+	// (p - memoFrom) * NUM_RULES + r, for p in [memoFrom, memoTo].
+	// memoEnds holds where the parse ended plus one, or 0 if it hasn't been
+	// parsed yet.  Both null if memoization is off.  Failures aren't
+	// recorded: they end the parse, or with recovery are skipped past.
+	private final int memoFrom;
+	private final int memoTo;
+	private final int[] memoEnds;
+	private final Exp[] memoResults;
+
+	// While parsing a class for parseProgram: which class it is, and the
+	// declared types of its fields and of the variables in scope, which
+	// say what class a field or method belongs to.  currentClass is null
+	// outside of parseProgram.
+	private ClassName currentClass;
+	private Map<String, Type> fieldTypes;
+	private Map<String, Type> variableTypes;
+	// whether parseProgram is leaving method bodies for later
+	private boolean lazyBodies;
+	// With parseProgramRecovering, the errors found so far, and how many to
+	// stop at.  errors is null when the first error is thrown straight away.
+	private List<ParseException> errors;
+	private int maxErrors;
 
 	public Parser(final Token[] tokens) {
+		this(TokenStream.fromTokens(tokens));
+	}
+
+	public Parser(final TokenStream tokens) {
+		this(tokens, DEFAULT_MAX_RECURSION_DEPTH);
+	}
+
+	// maxRecursionDepth of 0 parses everything with the explicit stack
+	public Parser(final TokenStream tokens, final int maxRecursionDepth) {
+		this(tokens, maxRecursionDepth, true);
+	}
+
+	// With memoize, each rule is parsed at most once at each position, so
+	// parsing takes linear time whatever the input.  Without it nothing is
+	// allocated for the memo table, which is a little faster on input that
+	// never parses the same place twice.
+	public Parser(final TokenStream tokens, final int maxRecursionDepth, final boolean memoize) {
+		this(tokens, maxRecursionDepth, memoize, 0, tokens.size());
+	}
+
+	// For parsing just tokens [from, to), as with parseClasses; only that
+	// much memo table is needed
+	Parser(final TokenStream tokens, final int from, final int to) {
+		this(tokens, DEFAULT_MAX_RECURSION_DEPTH, true, from, to);
+	}
+
+	private Parser(final TokenStream tokens,
+	               final int maxRecursionDepth,
+	               final boolean memoize,
+	               final int from,
+	               final int to) {
 		this.tokens = tokens;
+		this.maxRecursionDepth = maxRecursionDepth;
+		depth = 0;
+		pos = from;
+		memoFrom = from;
+		memoTo = to;
+		if (memoize) {
+			memoEnds = new int[(to - from + 1) * NUM_RULES];
+			memoResults = new Exp[(to - from + 1) * NUM_RULES];
+		} else {
+			memoEnds = null;
+			memoResults = null;
+		}
+	}
+
+	// what rule parsed to starting at the cursor, moving the cursor past it;
+	// null, leaving the cursor where it is, if that isn't known
+	private Exp recall(final int rule) {
+		if (memoEnds == null || pos < memoFrom || pos > memoTo) {
+			return null;
+		}
+		final int entry = (pos - memoFrom) * NUM_RULES + rule;
+		if (memoEnds[entry] == 0) {
+			return null;
+		}
+		pos = memoEnds[entry] - 1;
+		return memoResults[entry];
+	}
+
+	// records that rule parsed to result from position up to the cursor
+	private void remember(final int rule, final int position, final Exp result) {
+		if (memoEnds != null && position >= memoFrom && position <= memoTo) {
+			final int entry = (position - memoFrom) * NUM_RULES + rule;
+			memoEnds[entry] = pos + 1;
+			memoResults[entry] = result;
+		}
+	}
+
+	private void checkTokenIs(final int position, final int kind) throws ParseException {
+		if (tokens.kind(position) != kind) {
+			throw new ParseException("Expected: " + TokenKind.name(kind) + " Received: " + TokenKind.name(tokens.kind(position)) +
+			                         " at " + tokens.describePosition(position), position);
+		}
+	}
+
+	// checks the token at the cursor, and moves past it
+	private void expect(final int kind) throws ParseException {
+		checkTokenIs(pos, kind);
+		pos++;
+	}
+
+	// records that node starts at token position
+	private <N extends Node> N at(final int position, final N node) {
+		node.setPosition(tokens.position(position));
+		return node;
+	}
+
+	private String variableAt(final int position) throws ParseException {
+		checkTokenIs(position, TokenKind.VARIABLE);
+		return tokens.text(position);
 	}
 
-	private class ParseResult<A> {
-		public final A result;
-		public final int nextPos;
+	// the variable at the cursor, moving past it
+	private String expectVariable() throws ParseException {
+		final String result = variableAt(pos);
+		pos++;
+		return result;
+	}
+
+	// ---BEGIN OPERATOR TABLE---
+	// How tightly each kind of token binds as a binary operator; 0 for tokens
+	// which aren't binary operators.  Every operator is left associative.
+	private static final int[] PRECEDENCE = new int[TokenKind.NUM_KINDS];
+	private static final BOP[] BOPS = new BOP[TokenKind.NUM_KINDS];
+
+	private static void operator(final int kind, final int precedence, final BOP bop) {
+		PRECEDENCE[kind] = precedence;
+		BOPS[kind] = bop;
+	}
+
+	static {
+		operator(TokenKind.LOGICAL_OR, 1, new OrBOP());
+		operator(TokenKind.LOGICAL_AND, 2, new AndBOP());
+		operator(TokenKind.EQUAL_TO, 3, new EqualsBOP());
+		operator(TokenKind.NOT_EQUAL_TO, 3, new NotEqualsBOP());
+		operator(TokenKind.LESS_THAN, 4, new LessThanBOP());
+		operator(TokenKind.LESS_THAN_EQUAL_TO, 4, new LessThanEqualBOP());
+		operator(TokenKind.GREATER_THAN, 4, new GreaterThanBOP());
+		operator(TokenKind.GREATER_THAN_EQUAL_TO, 4, new GreaterThanEqualBOP());
+		operator(TokenKind.ADDITION, 5, new PlusBOP());
+		operator(TokenKind.SUBTRACTION, 5, new MinusBOP());
+		operator(TokenKind.MULTIPLICATION, 6, new MultBOP());
+		operator(TokenKind.DIVISION, 6, new DivBOP());
+	}
+	// ---END OPERATOR TABLE---
+
+	// Precedence climbing.  Parses a primary, then takes operators for as long
+	// as they bind at least as tightly as minPrecedence.  The right operand
+	// of each only takes operators binding more tightly than it does, which
+	// gives the usual precedence and makes everything left associative.
+	// Each token is looked at once; there's no backtracking.
+	public Exp parseBinaryExp(final int minPrecedence) throws ParseException {
+		final int startPos = pos;
+		Exp resultExp = parsePrimary();
+		int precedence = PRECEDENCE[tokens.kind(pos)];
+		while (precedence >= minPrecedence) {
+			final BOP bop = BOPS[tokens.kind(pos)];
+			pos++;
+			final Exp right = parseBinaryExp(precedence + 1);
+			resultExp = at(startPos, new BinopExp(resultExp, bop, right));
+			precedence = PRECEDENCE[tokens.kind(pos)];
+		}
+		return resultExp;
+	}
+
+	public Exp parseAdditiveExp() throws ParseException {
+		return parseBinaryExp(1);
+	}
+
+	public Exp parsePrimary() throws ParseException {
+		final Exp leaf = parseLeaf();
+		if (leaf != null) {
+			return leaf;
+		}
+		final Exp memoized = recall(PRIMARY);
+		if (memoized != null) {
+			return memoized;
+		}
+		final int startPos = pos;
+		expect(TokenKind.LEFT_PAREN);
+		final Exp inner = parseExp();
+		expect(TokenKind.RIGHT_PAREN);
+		remember(PRIMARY, startPos, inner);
+		return inner;
+	}
+
+	// whether a primary starting with kind is parsed by parseObjectExp
+	private boolean startsObjectExp(final int kind) {
+		return currentClass != null &&
+			(kind == TokenKind.VARIABLE || kind == TokenKind.THIS || kind == TokenKind.NEW);
+	}
 
-		public ParseResult(final A result, final int nextPos) {
-			this.result = result;
-			this.nextPos = nextPos;
+	// a primary with no expressions inside it, or null (leaving the cursor
+	// alone) if it isn't one.  Inside a class, an object expression, which
+	// can have arguments inside it.
+	private Exp parseLeaf() throws ParseException {
+		final int startPos = pos;
+		final int kind = tokens.kind(startPos);
+		if (startsObjectExp(kind)) {
+			return parseObjectExp();
+		} else if (kind == TokenKind.VARIABLE) {
+			pos++;
+			return at(startPos, new VariableExp(new Variable(tokens.text(startPos))));
+		} else if (kind == TokenKind.INTEGER) {
+			pos++;
+			return at(startPos, new IntegerExp(tokens.intValue(startPos)));
+		} else if (kind == TokenKind.LONG) {
+			throw new ParseException("Integer literal out of range: " + tokens.text(startPos) +
+			                         " at " + tokens.describePosition(startPos), startPos);
+		} else if (kind == TokenKind.BOOLEAN) {
+			pos++;
+			return at(startPos, new BooleanExp(tokens.intValue(startPos) != 0));
+		} else if (kind == TokenKind.INCREMENT) {
+			checkTokenIs(startPos + 1, TokenKind.INTEGER);
+			pos += 2;
+			return at(startPos, new IntegerExp(tokens.intValue(startPos + 1) + 1));
+		} else if (kind == TokenKind.CLASS) {
+			final String name = variableAt(startPos + 1);
+			pos += 2;
+			return at(startPos, new ClassExp(name));
+		} else if (kind == TokenKind.THIS) {
+			checkTokenIs(startPos + 1, TokenKind.PERIOD);
+			final String name = variableAt(startPos + 2);
+			pos += 3;
+			return at(startPos, new ThisExp(name));
+		} else {
+			return null;
 		}
 	}
 
-	private void checkTokenIs(final int position, final Token token) throws ParseException {
-		if (!tokens[position].equals(token)) {
-			throw new ParseException("Expected: " + token.toString() + "Received: " + tokens[position].toString(), position);
+	public Exp parseExp() throws ParseException {
+		final int startPos = pos;
+		final Exp memoized = recall(EXP);
+		if (memoized != null) {
+			return memoized;
 		}
+		if (depth >= maxRecursionDepth) {
+			return new ExplicitStackParser().parseExp();
+		}
+
+		final Exp result;
+		depth++;
+		try {
+			result = parseExpRecursively();
+		} finally {
+			depth--;
+		}
+		remember(EXP, startPos, result);
+		return result;
+	}
+
+	private Exp parseExtends() throws ParseException {
+		final int startPos = pos;
+		checkTokenIs(startPos + 2, TokenKind.EXTENDS);
+		final String asVar = variableAt(startPos + 1);
+		final String asVar2 = variableAt(startPos + 4);
+		pos += 5;
+		return at(startPos, new ExtendExp(at(startPos, new ClassExp(asVar)),at(startPos + 3, new ClassExp(asVar2))));
 	}
 
-	public ParseResult<List<Exp>> parseAdditiveExpHelper(final int startPos) {
-		final List<Exp> resultList = new ArrayList<Exp>();
-		int curPos = startPos;
+	private static boolean isAccessModifier(final int kind) {
+		return (kind == TokenKind.PUBLIC || kind == TokenKind.PRIVATE || kind == TokenKind.PROTECTED);
+	}
 
-		while (curPos < tokens.length) {
+	private Exp parseExpRecursively() throws ParseException {
+		final int startPos = pos;
+		final int kind = tokens.kind(startPos);
+		if (kind == TokenKind.IF) {
+			pos++;
+			expect(TokenKind.LEFT_PAREN);
+			final Exp guard = parseExp();
+			expect(TokenKind.RIGHT_PAREN);
+			final Exp ifTrue = parseExp();
+			expect(TokenKind.ELSE);
+			final Exp ifFalse = parseExp();
+			return at(startPos, new IfExp(guard, ifTrue, ifFalse));
+		} else if (kind == TokenKind.WHILE) {
+			pos++;
+			expect(TokenKind.LEFT_PAREN);
+			final Exp guard = parseExp();
+			expect(TokenKind.RIGHT_PAREN);
+			final Exp ifTrue = parseExp();
+			return at(startPos, new WhileExp(guard, ifTrue));
+		} else if (kind == TokenKind.RETURN) {
+			pos++;
+			final Exp ifTrue = parseExp();
+			return at(startPos, new ReturnExp(ifTrue));
+		} else if (kind == TokenKind.FOR) {
+			checkTokenIs(startPos + 1, TokenKind.LEFT_PAREN);
+			// the condition and increment always start at the next tokens
+			// along, wherever the one before ended
+			pos = startPos + 2;
+			final Exp init = parseExp();
+			pos = startPos + 3;
+			final Exp cond = parseExp();
+			pos = startPos + 4;
+			final Exp inc = parseExp();
+			expect(TokenKind.RIGHT_PAREN);
+			final Exp exec = parseExp();
+			return at(startPos, new ForExp(init, cond, inc, exec));
+		} else if (kind == TokenKind.CLASS) {
+			if (tokens.size() > startPos + 4) {
+				return parseExtends();
+			}
+			return parseAdditiveExp();
+		} else if (kind == TokenKind.BREAK) {
+			checkTokenIs(startPos + 1, TokenKind.SEMICOLON);
+			pos += 2;
+			return at(startPos, new BreakExp());
+		} else if (kind == TokenKind.PRINT) {
+			pos++;
+			expect(TokenKind.LEFT_PAREN);
+			final Exp printing = parseExp();
+			expect(TokenKind.RIGHT_PAREN);
+			expect(TokenKind.SEMICOLON);
+			return at(startPos, new PrintExp(printing));
+		} else if (isAccessModifier(kind)) {
+			if (tokens.size() < 4) {
+				checkTokenIs(startPos + 1, TokenKind.SEMICOLON);
+				return parseAdditiveExp();
+			}
+			variableAt(startPos + 1);
+			final String name = variableAt(startPos + 2);
+			pos += 3;
+			final Exp input = parseExp();
+			return at(startPos, new Methoddef(tokens.token(startPos), Types.INT, name, input));
+		} else {
+			return parseAdditiveExp();
+		}
+	}
+
+	// Parses the same language as parseExp and builds the same trees, but
+	// keeps track of what it's in the middle of with arrays instead of the
+	// Java stack.  Each frame is something waiting for an expression to be
+	// parsed: an if waiting for its guard, a binary expression waiting for
+	// its next operand, a new or method call waiting for its next argument,
+	// and so on.  Used once nesting gets deep, since it's a bit slower than
+	// plain recursion.
+	private class ExplicitStackParser {
+		// ---BEGIN CONSTANTS---
+		private static final int IF_GUARD = 0;
+		private static final int IF_TRUE = 1;
+		private static final int IF_FALSE = 2;
+		private static final int WHILE_GUARD = 3;
+		private static final int WHILE_BODY = 4;
+		private static final int RETURN_BODY = 5;
+		private static final int FOR_INIT = 6;
+		private static final int FOR_COND = 7;
+		private static final int FOR_INC = 8;
+		private static final int FOR_EXEC = 9;
+		private static final int PRINT_BODY = 10;
+		private static final int METHOD_BODY = 11;
+		private static final int PARENS = 12;
+		private static final int BINARY = 13;
+		private static final int NEW_ARGS = 14;
+		private static final int CALL_ARGS = 15;
+		// ---END CONSTANTS---
+
+		// ---BEGIN INSTANCE VARIABLES---
+		// frame i is waiting in state frameStates[i], for the construct
+		// starting at token frameStarts[i].  For BINARY frames,
+		// frameOperandStarts[i] is where the operand being parsed starts and
+		// frameOpBases[i] is where its operators start on ops.  For
+		// NEW_ARGS and CALL_ARGS frames, frameValueBases[i] is where the
+		// arguments parsed so far start on values, and for CALL_ARGS,
+		// frameOperandStarts[i] is the method's name; the target of the
+		// call is the value just below the arguments.
+		private int[] frameStates = new int[16];
+		private int[] frameStarts = new int[16];
+		private int[] frameOperandStarts = new int[16];
+		private int[] frameOpBases = new int[16];
+		private int[] frameValueBases = new int[16];
+		private int numFrames = 0;
+
+		// finished expressions which frames are holding on to, and for
+		// operands of binary expressions, the token each one started at
+		private Exp[] values = new Exp[16];
+		private int[] valueStarts = new int[16];
+		private int numValues = 0;
+
+		// pending binary operators, as token kinds
+		private int[] ops = new int[16];
+		private int numOps = 0;
+		// ---END INSTANCE VARIABLES---
+
+		private void pushFrame(final int state, final int start) {
+			if (numFrames == frameStates.length) {
+				final int newLength = numFrames * 2;
+				frameStates = java.util.Arrays.copyOf(frameStates, newLength);
+				frameStarts = java.util.Arrays.copyOf(frameStarts, newLength);
+				frameOperandStarts = java.util.Arrays.copyOf(frameOperandStarts, newLength);
+				frameOpBases = java.util.Arrays.copyOf(frameOpBases, newLength);
+				frameValueBases = java.util.Arrays.copyOf(frameValueBases, newLength);
+			}
+			frameStates[numFrames] = state;
+			frameStarts[numFrames] = start;
+			frameOperandStarts[numFrames] = start;
+			frameOpBases[numFrames] = numOps;
+			frameValueBases[numFrames] = numValues;
+			numFrames++;
+		}
+
+		private void pushValue(final Exp value, final int start) {
+			if (numValues == values.length) {
+				values = java.util.Arrays.copyOf(values, numValues * 2);
+				valueStarts = java.util.Arrays.copyOf(valueStarts, numValues * 2);
+			}
+			values[numValues] = value;
+			valueStarts[numValues] = start;
+			numValues++;
+		}
+
+		private Exp popValue() {
+			numValues--;
+			final Exp result = values[numValues];
+			values[numValues] = null;
+			return result;
+		}
+
+		private void pushOp(final int kind) {
+			if (numOps == ops.length) {
+				ops = java.util.Arrays.copyOf(ops, numOps * 2);
+			}
+			ops[numOps++] = kind;
+		}
+
+		// combines the last two operands with the last operator
+		private void reduce() {
+			final int kind = ops[--numOps];
+			final Exp right = popValue();
+			final int leftStart = valueStarts[numValues - 1];
+			final Exp left = popValue();
+			pushValue(at(leftStart, new BinopExp(left, BOPS[kind], right)), leftStart);
+		}
+
+		// pops the top frame, which has parsed to value, ending just before
+		// the cursor
+		private void finishFrame(final Exp value) {
+			numFrames--;
+			remember((frameStates[numFrames] == PARENS) ? PRIMARY : EXP, frameStarts[numFrames], value);
+		}
+
+		// Like parseObjectExp, but without recursing into arguments.
+		// Returns the expression if it's finished, or null if a frame is
+		// waiting for its first argument, which starts at the cursor.
+		private Exp startObjectExp() throws ParseException {
+			final int startPos = pos;
+			final Exp exp;
+			if (tokens.kind(startPos) == TokenKind.THIS) {
+				pos++;
+				exp = at(startPos, new VariableExp(ClassGenerator.thisVariable));
+			} else if (tokens.kind(startPos) == TokenKind.NEW) {
+				final String name = variableAt(startPos + 1);
+				checkTokenIs(startPos + 2, TokenKind.LEFT_PAREN);
+				pos = startPos + 3;
+				if (tokens.kind(pos) != TokenKind.RIGHT_PAREN) {
+					pushFrame(NEW_ARGS, startPos);
+					return null;
+				}
+				pos++;
+				exp = at(startPos, new NewExp(new ClassName(name), new ArrayList<Exp>()));
+			} else {
+				final String name = expectVariable();
+				if (name.equals("true") || name.equals("false")) {
+					exp = at(startPos, new BooleanExp(name.equals("true")));
+				} else {
+					exp = at(startPos, new VariableExp(new Variable(name)));
+				}
+			}
+			return continueObjectExp(exp, startPos);
+		}
+
+		// the field accesses and method calls after exp, which started at
+		// startPos; returns null like startObjectExp
+		private Exp continueObjectExp(Exp exp, final int startPos) throws ParseException {
+			while (tokens.kind(pos) == TokenKind.PERIOD) {
+				final ClassName className = classOf(exp, pos);
+				pos++;
+				final int memberPos = pos;
+				final String member = expectVariable();
+				if (tokens.kind(pos) != TokenKind.LEFT_PAREN) {
+					exp = at(startPos, new GetExp(exp, className, new Variable(member)));
+				} else if (tokens.kind(pos + 1) == TokenKind.RIGHT_PAREN) {
+					pos += 2;
+					exp = at(startPos, new MethodCallExp(exp, className, new MethodName(member), new ArrayList<Exp>()));
+				} else {
+					pushValue(exp, startPos);
+					pushFrame(CALL_ARGS, startPos);
+					frameOperandStarts[numFrames - 1] = memberPos;
+					pos++;
+					return null;
+				}
+			}
+			return exp;
+		}
+
+		// pops the top frame, whose arguments have all been parsed, and
+		// carries on with what follows its call
+		private Exp finishArgs() throws ParseException {
+			final int frame = numFrames - 1;
+			final int start = frameStarts[frame];
+			final int base = frameValueBases[frame];
+			final List<Exp> args = new ArrayList<Exp>(numValues - base);
+			for (int index = base; index < numValues; index++) {
+				args.add(values[index]);
+			}
+			while (numValues > base) {
+				popValue();
+			}
+			numFrames--;
+
+			final Exp exp;
+			if (frameStates[frame] == NEW_ARGS) {
+				exp = at(start, new NewExp(new ClassName(tokens.text(start + 1)), args));
+			} else {
+				final int memberPos = frameOperandStarts[frame];
+				final Exp target = popValue();
+				// already checked when the call was started
+				final ClassName className = classOf(target, memberPos - 1);
+				exp = at(start, new MethodCallExp(target, className, new MethodName(tokens.text(memberPos)), args));
+			}
+			return continueObjectExp(exp, start);
+		}
+
+		public Exp parseExp() throws ParseException {
+			// Either the cursor is where the next expression starts
+			// (parsingPrimary says whether that's a whole expression or just
+			// an operand), or value has just been parsed and the cursor is on
+			// the token after it.
+			boolean haveValue = false;
+			boolean parsingPrimary = false;
+			Exp value = null;
+
+			while (true) {
+				if (!haveValue && parsingPrimary && startsObjectExp(tokens.kind(pos))) {
+					value = startObjectExp();
+					haveValue = (value != null);
+					parsingPrimary = false;
+				} else if (!haveValue && parsingPrimary) {
+					Exp leaf = parseLeaf();
+					if (leaf == null) {
+						leaf = recall(PRIMARY);
+					}
+					if (leaf != null) {
+						value = leaf;
+						haveValue = true;
+						parsingPrimary = false;
+					} else {
+						checkTokenIs(pos, TokenKind.LEFT_PAREN);
+						pushFrame(PARENS, pos);
+						pos++;
+						parsingPrimary = false;
+					}
+				} else if (!haveValue) {
+					final int kind = tokens.kind(pos);
+					final Exp memoized = recall(EXP);
+					if (memoized != null) {
+						value = memoized;
+						haveValue = true;
+					} else if (kind == TokenKind.IF) {
+						checkTokenIs(pos + 1, TokenKind.LEFT_PAREN);
+						pushFrame(IF_GUARD, pos);
+						pos += 2;
+					} else if (kind == TokenKind.WHILE) {
+						checkTokenIs(pos + 1, TokenKind.LEFT_PAREN);
+						pushFrame(WHILE_GUARD, pos);
+						pos += 2;
+					} else if (kind == TokenKind.RETURN) {
+						pushFrame(RETURN_BODY, pos);
+						pos++;
+					} else if (kind == TokenKind.FOR) {
+						checkTokenIs(pos + 1, TokenKind.LEFT_PAREN);
+						pushFrame(FOR_INIT, pos);
+						pos += 2;
+					} else if (kind == TokenKind.CLASS && tokens.size() > pos + 4) {
+						value = parseExtends();
+						haveValue = true;
+					} else if (kind == TokenKind.BREAK) {
+						checkTokenIs(pos + 1, TokenKind.SEMICOLON);
+						value = at(pos, new BreakExp());
+						pos += 2;
+						haveValue = true;
+					} else if (kind == TokenKind.PRINT) {
+						checkTokenIs(pos + 1, TokenKind.LEFT_PAREN);
+						pushFrame(PRINT_BODY, pos);
+						pos += 2;
+					} else if (isAccessModifier(kind) && tokens.size() >= 4) {
+						variableAt(pos + 1);
+						variableAt(pos + 2);
+						pushFrame(METHOD_BODY, pos);
+						pos += 3;
+					} else {
+						if (isAccessModifier(kind)) {
+							checkTokenIs(pos + 1, TokenKind.SEMICOLON);
+						}
+						pushFrame(BINARY, pos);
+						parsingPrimary = true;
+					}
+				} else if (numFrames == 0) {
+					return value;
+				} else {
+					// hand value to whatever was waiting for it
+					final int frame = numFrames - 1;
+					final int start = frameStarts[frame];
+					switch (frameStates[frame]) {
+					case IF_GUARD:
+						checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+						pushValue(value, pos);
+						frameStates[frame] = IF_TRUE;
+						pos++;
+						haveValue = false;
+						break;
+					case IF_TRUE:
+						checkTokenIs(pos, TokenKind.ELSE);
+						pushValue(value, pos);
+						frameStates[frame] = IF_FALSE;
+						pos++;
+						haveValue = false;
+						break;
+					case IF_FALSE: {
+						final Exp ifTrue = popValue();
+						final Exp guard = popValue();
+						value = at(start, new IfExp(guard, ifTrue, value));
+						finishFrame(value);
+						break;
+					}
+					case WHILE_GUARD:
+						checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+						pushValue(value, pos);
+						frameStates[frame] = WHILE_BODY;
+						pos++;
+						haveValue = false;
+						break;
+					case WHILE_BODY:
+						value = at(start, new WhileExp(popValue(), value));
+						finishFrame(value);
+						break;
+					case RETURN_BODY:
+						value = at(start, new ReturnExp(value));
+						finishFrame(value);
+						break;
+					case FOR_INIT:
+						// like parseExp, the condition and increment are
+						// always the next tokens along
+						pushValue(value, pos);
+						frameStates[frame] = FOR_COND;
+						pos = start + 3;
+						haveValue = false;
+						break;
+					case FOR_COND:
+						pushValue(value, pos);
+						frameStates[frame] = FOR_INC;
+						pos = start + 4;
+						haveValue = false;
+						break;
+					case FOR_INC:
+						checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+						pushValue(value, pos);
+						frameStates[frame] = FOR_EXEC;
+						pos++;
+						haveValue = false;
+						break;
+					case FOR_EXEC: {
+						final Exp inc = popValue();
+						final Exp cond = popValue();
+						final Exp init = popValue();
+						value = at(start, new ForExp(init, cond, inc, value));
+						finishFrame(value);
+						break;
+					}
+					case PRINT_BODY:
+						checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+						checkTokenIs(pos + 1, TokenKind.SEMICOLON);
+						value = at(start, new PrintExp(value));
+						pos += 2;
+						finishFrame(value);
+						break;
+					case METHOD_BODY:
+						value = at(start, new Methoddef(tokens.token(start), Types.INT, tokens.text(start + 2), value));
+						finishFrame(value);
+						break;
+					case PARENS:
+						checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+						pos++;
+						finishFrame(value);
+						break;
+					case NEW_ARGS:
+					case CALL_ARGS:
+						pushValue(value, pos);
+						if (tokens.kind(pos) == TokenKind.COMMA) {
+							pos++;
+							haveValue = false;
+						} else {
+							checkTokenIs(pos, TokenKind.RIGHT_PAREN);
+							pos++;
+							value = finishArgs();
+							haveValue = (value != null);
+						}
+						break;
+					case BINARY: {
+						pushValue(value, frameOperandStarts[frame]);
+						final int precedence = PRECEDENCE[tokens.kind(pos)];
+						while (numOps > frameOpBases[frame] && PRECEDENCE[ops[numOps - 1]] >= precedence) {
+							reduce();
+						}
+						if (precedence > 0) {
+							pushOp(tokens.kind(pos));
+							pos++;
+							frameOperandStarts[frame] = pos;
+							haveValue = false;
+							parsingPrimary = true;
+						} else {
+							value = popValue();
+							finishFrame(value);
+						}
+						break;
+					}
+					default:
+						assert(false);
+						throw new ParseException("Unknown parser state: " + frameStates[frame], pos);
+					}
+				}
+			}
+		}
+	} // ExplicitStackParser
+
+	// ---BEGIN PROGRAM PARSING---
+	// program     ::= classdef*
+	// classdef    ::= Class name [extends name] '{' instancedec* constructor [main] methoddef* '}'
+	// instancedec ::= type name ';'
+	// constructor ::= name '(' params ')' '{' [super '(' args ')' ';'] stmt* '}'
+	// main        ::= void main '(' ')' '{' stmt* '}'
+	// methoddef   ::= access type name '(' params ')' '{' stmt* return exp ';' '}'
+	// params      ::= [type name (',' type name)*]
+	// args        ::= [exp (',' exp)*]
+	// stmt        ::= type name '=' exp ';' | name '=' exp ';' | exp '.' name '=' exp ';'
+	//              |  print '(' name ')' ';'
+	//              |  if '(' exp ')' body [else body] | while '(' exp ')' body
+	// body        ::= '{' stmt* '}' | stmt
+	// type        ::= int | boolean | classname
+	//
+	// Inside a class, an expression can also be this, new name '(' args ')',
+	// or any of those followed by '.' name or '.' name '(' args ')'; true
+	// and false are boolean literals.  A class without a main gets an empty
+	// one, and one without an extends extends Object.
+
+	public Program parseProgram() throws ParseException {
+		return parseProgram(null);
+	}
+
+	// sourceFile is the name given to the generated classes' source file
+	public Program parseProgram(final String sourceFile) throws ParseException {
+		return parseProgram(sourceFile, false);
+	}
+
+	// With lazyBodies, method bodies are only brace-matched; each is parsed
+	// when first asked for (see LazyBody).  Errors in a body aren't found
+	// until then.
+	public Program parseProgram(final String sourceFile, final boolean lazyBodies) throws ParseException {
+		this.lazyBodies = lazyBodies;
+		return new Program(new ArrayList<FirstOrderFunctionDefinition>(),
+		                   parseClasses(0, tokens.size()),
+		                   sourceFile,
+		                   tokens.lineMap());
+	}
+
+	// Like parseProgram, but carries on past syntax errors, so one pass finds
+	// them all.  If there were any, throws a ParseErrors holding them in
+	// source order, stopping early once there are maxErrors of them.
+	//
+	// Recovery is panic mode: after an error, tokens are skipped to the end of
+	// the statement or member it was in (the next ';', or the '}' closing a
+	// block it opened), or failing that to the next Class.  Errors caused only
+	// by the skipping can still show up, but each is somewhere a real error
+	// was.
+	public Program parseProgramRecovering(final String sourceFile, final int maxErrors) throws ParseException {
+		this.errors = new ArrayList<ParseException>();
+		this.maxErrors = maxErrors;
+		try {
+			final Program program = parseProgram(sourceFile, false);
+			if (!errors.isEmpty()) {
+				throw new ParseErrors(errors, false);
+			}
+			return program;
+		} finally {
+			this.errors = null;
+		}
+	}
+
+	public Program parseProgramRecovering(final String sourceFile) throws ParseException {
+		return parseProgramRecovering(sourceFile, DEFAULT_MAX_ERRORS);
+	}
+
+	// Notes an error to carry on past, or throws it if not recovering.
+	// Throws all of them once there are maxErrors.
+	private void recover(final ParseException error) throws ParseException {
+		if (errors == null) {
+			throw error;
+		}
+		errors.add(error);
+		if (errors.size() >= maxErrors) {
+			throw new ParseErrors(errors, true);
+		}
+	}
+
+	// Where to carry on after an error in the statement or member starting at
+	// startPos: just after the first ';' not inside braces, or after the '}'
+	// closing the first '{' (and any else part), or at a '}' or return which
+	// belongs to something enclosing it.  -1 if a Class or the end of the
+	// input comes first, in which case only the class-level recovery can
+	// help.
+	private int skipStatement(final int startPos) {
+		int depth = 0;
+		for (int pos = startPos; pos < tokens.size(); pos++) {
+			final int kind = tokens.kind(pos);
+			if (kind == TokenKind.CLASS) {
+				return -1;
+			} else if (kind == TokenKind.RETURN && depth == 0 && pos > startPos) {
+				return pos;
+			} else if (kind == TokenKind.LEFT_BRACKET) {
+				depth++;
+			} else if (kind == TokenKind.RIGHT_BRACKET) {
+				if (depth == 0) {
+					return pos;
+				}
+				depth--;
+				if (depth == 0 && tokens.kind(pos + 1) != TokenKind.ELSE) {
+					return pos + 1;
+				}
+			} else if (kind == TokenKind.SEMICOLON && depth == 0) {
+				return pos + 1;
+			}
+		}
+		return -1;
+	}
+
+	// recovers from error in the statement or member at startPos, moving the
+	// cursor to where to carry on; rethrows it if it can't be recovered
+	// from here
+	private void recoverAt(final int startPos, final ParseException error) throws ParseException {
+		if (errors == null || error instanceof ParseErrors) {
+			throw error;
+		}
+		final int resume = skipStatement(startPos);
+		if (resume < 0) {
+			throw error;
+		}
+		recover(error);
+		pos = resume;
+	}
+
+	// the classes in tokens [from, to), which must hold nothing else
+	List<ClassDefinition> parseClasses(final int from, final int to) throws ParseException {
+		final List<ClassDefinition> classDefs = new ArrayList<ClassDefinition>();
+		pos = from;
+		while (pos < to) {
+			final int classStart = pos;
 			try {
-				checkTokenIs(curPos, new AdditionToken());
-				final ParseResult<Exp> curPrimary = parsePrimary(curPos + 1);
-				curPos = curPrimary.nextPos;
-				resultList.add(curPrimary.result);
+				classDefs.add(parseClassDefinition());
 			} catch (final ParseException e) {
+				if (errors == null || e instanceof ParseErrors) {
+					throw e;
+				}
+				recover(e);
+				// on to the next class
+				pos = classStart + 1;
+				while (pos < to && tokens.kind(pos) != TokenKind.CLASS) {
+					pos++;
+				}
+			}
+		}
+		if (pos != to) {
+			throw new ParseException("Class runs past the end of its braces at " + tokens.describePosition(to), to);
+		}
+		return classDefs;
+	}
+
+	private ClassDefinition parseClassDefinition() throws ParseException {
+		expect(TokenKind.CLASS);
+		final ClassName name = new ClassName(expectVariable());
+		ClassName extendsName = new ClassName(ClassGenerator.objectName);
+		if (tokens.kind(pos) == TokenKind.EXTENDS) {
+			pos++;
+			extendsName = new ClassName(expectVariable());
+		}
+		expect(TokenKind.LEFT_BRACKET);
+
+		currentClass = name;
+		fieldTypes = new HashMap<String, Type>();
+		try {
+			final List<FormalParam> instanceVariables = new ArrayList<FormalParam>();
+			while (!isConstructorStart(pos, name) &&
+			       !isAccessModifier(tokens.kind(pos)) &&
+			       !isMemberEnd(tokens.kind(pos)) &&
+			       tokens.kind(pos) != TokenKind.VOID) {
+				final int fieldStart = pos;
+				try {
+					final FormalParam field = parseFormalParam();
+					expect(TokenKind.SEMICOLON);
+					instanceVariables.add(field);
+					fieldTypes.put(field.variable.name, field.type);
+				} catch (final ParseException e) {
+					recoverAt(fieldStart, e);
+				}
+			}
+
+			// a class with something wrong with its constructor gets an
+			// empty one, so the rest of it can still be checked
+			Constructor constructor = new Constructor(new ArrayList<FormalParam>(),
+			                                          new ArrayList<Exp>(),
+			                                          new ArrayList<Stmt>());
+			if (!isConstructorStart(pos, name)) {
+				recover(new ParseException("Expected: constructor for " + name.name +
+				                           " Received: " + TokenKind.name(tokens.kind(pos)) +
+				                           " at " + tokens.describePosition(pos), pos));
+			} else {
+				final int constructorStart = pos;
+				try {
+					constructor = parseConstructor();
+				} catch (final ParseException e) {
+					recoverAt(constructorStart, e);
+				}
+			}
+
+			MainDefinition main = new MainDefinition(new ArrayList<Stmt>());
+			if (tokens.kind(pos) == TokenKind.VOID) {
+				final int mainStart = pos;
 				try {
-					checkTokenIs(curPos, new SubtractionToken());
-					final ParseResult<Exp> curPrimary = parsePrimary(curPos + 1);
-					curPos = curPrimary.nextPos;
-					resultList.add(curPrimary.result);
-				} catch (final ParseException e1) {
+					main = parseMain();
+				} catch (final ParseException e) {
+					recoverAt(mainStart, e);
+				}
+			}
+
+			final List<MethodDefinition> methods = new ArrayList<MethodDefinition>();
+			while (!isMemberEnd(tokens.kind(pos))) {
+				final int methodStart = pos;
+				try {
+					methods.add(parseMethodDefinition());
+				} catch (final ParseException e) {
+					recoverAt(methodStart, e);
+				}
+			}
+			expect(TokenKind.RIGHT_BRACKET);
+
+			return new ClassDefinition(name,
+			                           extendsName,
+			                           instanceVariables,
+			                           constructor,
+			                           main,
+			                           methods);
+		} finally {
+			currentClass = null;
+			fieldTypes = null;
+			variableTypes = null;
+		}
+	}
+
+	private boolean isConstructorStart(final int position, final ClassName name) {
+		return tokens.kind(position) == TokenKind.VARIABLE &&
+			tokens.text(position).equals(name.name) &&
+			tokens.kind(position + 1) == TokenKind.LEFT_PAREN;
+	}
+
+	// what can end a run of members or statements: the closing '}', or,
+	// if that's missing, the next class or the end of the input
+	private static boolean isMemberEnd(final int kind) {
+		return kind == TokenKind.RIGHT_BRACKET || kind == TokenKind.CLASS || kind == TokenKind.EOF;
+	}
+
+	// void main '(' ')' '{' stmt* '}'
+	private MainDefinition parseMain() throws ParseException {
+		expect(TokenKind.VOID);
+		checkTokenIs(pos, TokenKind.VARIABLE);
+		if (!tokens.text(pos).equals("main")) {
+			throw new ParseException("Expected: main Received: " + tokens.text(pos) +
+			                         " at " + tokens.describePosition(pos), pos);
+		}
+		pos++;
+		expect(TokenKind.LEFT_PAREN);
+		expect(TokenKind.RIGHT_PAREN);
+		startCallable(new ArrayList<FormalParam>());
+		return new MainDefinition(parseBlock());
+	}
+
+	// Something parseStmts is in the middle of: a block collecting
+	// statements up to its '}', a single statement standing in for a block,
+	// or an if or while waiting for one of those as its body.
+	private static class StmtFrame {
+		// ---BEGIN CONSTANTS---
+		public static final int BLOCK = 0;
+		public static final int SINGLE = 1;
+		public static final int IF_TRUE = 2;
+		public static final int IF_FALSE = 3;
+		public static final int WHILE_BODY = 4;
+		// ---END CONSTANTS---
+
+		// ---BEGIN INSTANCE VARIABLES---
+		public int state;
+		// where the if or while starts; for a block, where the statement
+		// being parsed in it starts
+		public int start;
+		public final Exp guard;
+		// the statements so far of a block or single statement
+		public final List<Stmt> stmts;
+		// an if's true branch, once it's been parsed
+		public List<Stmt> ifTrue;
+		// ---END INSTANCE VARIABLES---
+
+		public StmtFrame(final int state, final int start, final Exp guard, final List<Stmt> stmts) {
+			this.state = state;
+			this.start = start;
+			this.guard = guard;
+			this.stmts = stmts;
+		}
+	} // StmtFrame
+
+	// Statements up to the '}' at the end of a block, or up to a return if
+	// untilReturn, added to stmts.  With recovery, a statement with an error
+	// in it is left out.
+	//
+	// The bodies of ifs and whiles are kept track of on frames rather than
+	// the Java stack, so however deeply they're nested they can't overflow
+	// it.  An error unwinds the frames to the innermost block, just as it
+	// would unwind recursive calls, and is recovered from there.
+	private void parseStmts(final boolean untilReturn, final List<Stmt> stmts) throws ParseException {
+		final List<StmtFrame> frames = new ArrayList<StmtFrame>();
+		frames.add(new StmtFrame(StmtFrame.BLOCK, pos, null, stmts));
+		while (true) {
+			final StmtFrame top = frames.get(frames.size() - 1);
+			try {
+				final int kind = tokens.kind(pos);
+				final boolean done;
+				if (top.state == StmtFrame.SINGLE) {
+					done = !top.stmts.isEmpty();
+				} else {
+					done = isMemberEnd(kind) || (frames.size() == 1 && untilReturn && kind == TokenKind.RETURN);
+				}
+
+				if (!done) {
+					top.start = pos;
+					parseStmt(frames, top);
+				} else if (frames.size() == 1) {
+					return;
+				} else {
+					frames.remove(frames.size() - 1);
+					if (top.state == StmtFrame.BLOCK) {
+						expect(TokenKind.RIGHT_BRACKET);
+					}
+					finishBody(frames, top.stmts);
+				}
+			} catch (final ParseException e) {
+				ParseException error = e;
+				while (true) {
+					while (frames.get(frames.size() - 1).state != StmtFrame.BLOCK) {
+						frames.remove(frames.size() - 1);
+					}
 					try {
-						checkTokenIs(curPos, new MultiplicationToken());
-						final ParseResult<Exp> curPrimary = parsePrimary(curPos + 1);
-						curPos = curPrimary.nextPos;
-						resultList.add(curPrimary.result);
-					} catch (final ParseException e2) {
-						try {
-							checkTokenIs(curPos, new DivisionToken());
-							final ParseResult<Exp> curPrimary = parsePrimary(curPos + 1);
-							curPos = curPrimary.nextPos;
-							resultList.add(curPrimary.result);
-						} catch (final ParseException e3) {
-							break;
+						recoverAt(frames.get(frames.size() - 1).start, error);
+						break;
+					} catch (final ParseException unrecovered) {
+						if (frames.size() == 1) {
+							throw unrecovered;
 						}
+						// up to the block around this one
+						frames.remove(frames.size() - 1);
+						error = unrecovered;
 					}
 				}
 			}
 		}
-		return new ParseResult<List<Exp>>(resultList, curPos);
 	}
 
-	public ParseResult<Exp> parseAdditiveExp(final int startPos) throws ParseException {
-		final ParseResult<Exp> starting = parsePrimary(startPos);
-		final ParseResult<List<Exp>> rest = parseAdditiveExpHelper(starting.nextPos);
-		Exp resultExp = starting.result;
-		int pos = startPos + 1;
-		for (final Exp otherExp : rest.result) {
-			if(tokens[pos].equals(new AdditionToken())) {
-			resultExp = new PlusExp(resultExp, otherExp);
-		} else if(tokens[pos].equals(new SubtractionToken())){
-			resultExp = new SubExp(resultExp, otherExp);
-		} else if(tokens[pos].equals(new MultiplicationToken())){
-			resultExp = new MultExp(resultExp, otherExp);
+	// a frame for the body starting at the cursor: a block, or a single
+	// statement standing in for one
+	private void startBody(final List<StmtFrame> frames) {
+		if (tokens.kind(pos) == TokenKind.LEFT_BRACKET) {
+			pos++;
+			frames.add(new StmtFrame(StmtFrame.BLOCK, pos, null, new ArrayList<Stmt>()));
+		} else {
+			frames.add(new StmtFrame(StmtFrame.SINGLE, pos, null, new ArrayList<Stmt>()));
+		}
+	}
+
+	// hands body, which has been parsed, to the if or while on top of frames
+	private void finishBody(final List<StmtFrame> frames, final List<Stmt> body) {
+		final StmtFrame waiting = frames.get(frames.size() - 1);
+		final Stmt stmt;
+		if (waiting.state == StmtFrame.IF_TRUE) {
+			if (tokens.kind(pos) == TokenKind.ELSE) {
+				pos++;
+				waiting.ifTrue = body;
+				waiting.state = StmtFrame.IF_FALSE;
+				startBody(frames);
+				return;
+			}
+			stmt = at(waiting.start, new IfStmt(waiting.guard, body, new ArrayList<Stmt>()));
+		} else if (waiting.state == StmtFrame.IF_FALSE) {
+			stmt = at(waiting.start, new IfStmt(waiting.guard, waiting.ifTrue, body));
+		} else {
+			stmt = at(waiting.start, new WhileStmt(waiting.guard, body));
+		}
+		frames.remove(frames.size() - 1);
+		frames.get(frames.size() - 1).stmts.add(stmt);
+	}
+
+	// a fresh scope holding this and params
+	private void startCallable(final List<FormalParam> params) {
+		variableTypes = new HashMap<String, Type>();
+		variableTypes.put(ClassGenerator.thisVariable.name, Types.reference(currentClass));
+		for (final FormalParam param : params) {
+			variableTypes.put(param.variable.name, param.type);
+		}
+	}
+
+	private Constructor parseConstructor() throws ParseException {
+		// the class's name, which isConstructorStart has checked
+		pos++;
+		final List<FormalParam> params = parseFormalParams();
+		startCallable(params);
+		expect(TokenKind.LEFT_BRACKET);
+
+		List<Exp> superParams = new ArrayList<Exp>();
+		if (tokens.kind(pos) == TokenKind.VARIABLE && tokens.text(pos).equals("super")) {
+			pos++;
+			superParams = parseArgs();
+			expect(TokenKind.SEMICOLON);
+		}
+
+		final List<Stmt> body = new ArrayList<Stmt>();
+		parseStmts(false, body);
+		expect(TokenKind.RIGHT_BRACKET);
+		return new Constructor(params, superParams, body);
+	}
+
+	private MethodDefinition parseMethodDefinition() throws ParseException {
+		if (!isAccessModifier(tokens.kind(pos))) {
+			throw new ParseException("Expected: method Received: " + TokenKind.name(tokens.kind(pos)) +
+			                         " at " + tokens.describePosition(pos), pos);
+		}
+		pos++;
+		final Type returnType = parseType();
+		final String name = expectVariable();
+		final List<FormalParam> params = parseFormalParams();
+		if (lazyBodies) {
+			final int bodyStart = pos;
+			pos = matchingBracket(bodyStart) + 1;
+			return new MethodDefinition(new LazyBody(tokens,
+			                                         bodyStart,
+			                                         pos,
+			                                         currentClass,
+			                                         fieldTypes,
+			                                         returnType,
+			                                         new MethodName(name),
+			                                         params));
+		}
+		startCallable(params);
+		return parseMethodBody(returnType, new MethodName(name), params);
+	}
+
+	// '{' stmt* return exp ';' '}'
+	private MethodDefinition parseMethodBody(final Type returnType,
+	                                         final MethodName name,
+	                                         final List<FormalParam> params) throws ParseException {
+		expect(TokenKind.LEFT_BRACKET);
+		final List<Stmt> body = new ArrayList<Stmt>();
+		parseStmts(true, body);
+		expect(TokenKind.RETURN);
+		final Exp returned = parseExp();
+		expect(TokenKind.SEMICOLON);
+		expect(TokenKind.RIGHT_BRACKET);
+		return new MethodDefinition(returnType, name, params, body, returned);
+	}
+
+	// the '}' matching the '{' at startPos
+	private int matchingBracket(final int startPos) throws ParseException {
+		checkTokenIs(startPos, TokenKind.LEFT_BRACKET);
+		int depth = 0;
+		for (int position = startPos; position < tokens.size(); position++) {
+			if (tokens.kind(position) == TokenKind.LEFT_BRACKET) {
+				depth++;
+			} else if (tokens.kind(position) == TokenKind.RIGHT_BRACKET) {
+				depth--;
+				if (depth == 0) {
+					return position;
+				}
+			}
+		}
+		throw new ParseException("Unmatched { at " + tokens.describePosition(startPos), startPos);
+	}
+
+	// parses a body left by parseProgram with lazyBodies, just as it would
+	// have been parsed then
+	MethodDefinition parseLazyBody(final LazyBody.Source lazy) throws ParseException {
+		currentClass = lazy.inClass;
+		fieldTypes = lazy.fieldTypes;
+		try {
+			startCallable(lazy.formalParams);
+			pos = lazy.from;
+			final MethodDefinition method = parseMethodBody(lazy.returnType, lazy.name, lazy.formalParams);
+			if (pos != lazy.to) {
+				throw new ParseException("Method body runs past its braces at " + tokens.describePosition(lazy.to), lazy.to);
+			}
+			return method;
+		} finally {
+			currentClass = null;
+			fieldTypes = null;
+			variableTypes = null;
+		}
+	}
+
+	private Type parseType() throws ParseException {
+		if (tokens.kind(pos) == TokenKind.BOOLEAN) {
+			pos++;
+			return Types.BOOL;
+		}
+		final String name = expectVariable();
+		if (name.equals("int")) {
+			return Types.INT;
 		} else {
-			resultExp = new DivExp(resultExp, otherExp);
+			return Types.reference(new ClassName(name));
 		}
+	}
+
+	private FormalParam parseFormalParam() throws ParseException {
+		final Type type = parseType();
+		return new FormalParam(type, new Variable(expectVariable()));
+	}
+
+	// '(' params ')'
+	private List<FormalParam> parseFormalParams() throws ParseException {
+		expect(TokenKind.LEFT_PAREN);
+		final List<FormalParam> params = new ArrayList<FormalParam>();
+		if (tokens.kind(pos) != TokenKind.RIGHT_PAREN) {
+			params.add(parseFormalParam());
+			while (tokens.kind(pos) == TokenKind.COMMA) {
+				pos++;
+				params.add(parseFormalParam());
+			}
+		}
+		expect(TokenKind.RIGHT_PAREN);
+		return params;
+	}
+
+	// '(' args ')'
+	private List<Exp> parseArgs() throws ParseException {
+		expect(TokenKind.LEFT_PAREN);
+		final List<Exp> args = new ArrayList<Exp>();
+		if (tokens.kind(pos) != TokenKind.RIGHT_PAREN) {
+			args.add(parseExp());
+			while (tokens.kind(pos) == TokenKind.COMMA) {
+				pos++;
+				args.add(parseExp());
+			}
+		}
+		expect(TokenKind.RIGHT_PAREN);
+		return args;
+	}
+
+	// '{' stmt* '}'
+	private List<Stmt> parseBlock() throws ParseException {
+		expect(TokenKind.LEFT_BRACKET);
+		final List<Stmt> stmts = new ArrayList<Stmt>();
+		parseStmts(false, stmts);
+		expect(TokenKind.RIGHT_BRACKET);
+		return stmts;
+	}
+
+	// Parses the statement at the cursor into block, the list frame on top
+	// of frames.  An if or while only has its guard parsed here: it gets a
+	// frame of its own, and one above that for its body.
+	private void parseStmt(final List<StmtFrame> frames, final StmtFrame block) throws ParseException {
+		final int startPos = pos;
+		final int kind = tokens.kind(startPos);
+		if (kind == TokenKind.IF || kind == TokenKind.WHILE) {
+			pos++;
+			expect(TokenKind.LEFT_PAREN);
+			final Exp guard = parseExp();
+			expect(TokenKind.RIGHT_PAREN);
+			frames.add(new StmtFrame((kind == TokenKind.IF) ? StmtFrame.IF_TRUE : StmtFrame.WHILE_BODY,
+			                         startPos,
+			                         guard,
+			                         null));
+			startBody(frames);
+		} else {
+			block.stmts.add(parseSimpleStmt());
+		}
+	}
+
+	// a statement other than an if or while, which has no statements inside it
+	private Stmt parseSimpleStmt() throws ParseException {
+		final int startPos = pos;
+		final int kind = tokens.kind(startPos);
+		if (kind == TokenKind.PRINT) {
+			pos++;
+			expect(TokenKind.LEFT_PAREN);
+			final String name = expectVariable();
+			expect(TokenKind.RIGHT_PAREN);
+			expect(TokenKind.SEMICOLON);
+			return at(startPos, new PrintStmt(new Variable(name)));
+		} else if (kind == TokenKind.BOOLEAN ||
+		           (kind == TokenKind.VARIABLE && tokens.kind(startPos + 1) == TokenKind.VARIABLE)) {
+			final FormalParam declared = parseFormalParam();
+			expect(TokenKind.EQUAL);
+			final Exp exp = parseExp();
+			expect(TokenKind.SEMICOLON);
+			variableTypes.put(declared.variable.name, declared.type);
+			return at(startPos, new VariableDeclarationStmt(declared.type, declared.variable, exp));
+		} else if (kind == TokenKind.VARIABLE && tokens.kind(startPos + 1) == TokenKind.EQUAL) {
 			pos += 2;
-		} 
-		return new ParseResult<Exp>(resultExp, rest.nextPos);
-	}
-
-	public ParseResult<Exp> parsePrimary(final int startPos) throws ParseException {
-		if (tokens[startPos] instanceof VariableToken) {
-			final VariableToken asVar = (VariableToken) tokens[startPos];
-			return new ParseResult<Exp>(new VariableExp(new Variable(asVar.name)), startPos + 1);
-		} else if (tokens[startPos] instanceof IntegerToken) {
-			final IntegerToken asInt = (IntegerToken) tokens[startPos];
-			return new ParseResult<Exp>(new IntegerExp(asInt.value), startPos + 1);
-		} else if (tokens[startPos] instanceof BooleanToken) {
-			final BooleanToken asBol = (BooleanToken) tokens[startPos];
-			return new ParseResult<Exp>(new BooleanExp(asBol.value), startPos + 1);
-		} else if (tokens[startPos] instanceof IncrementToken) {
-			final IntegerToken asInt = (IntegerToken) tokens[startPos + 1];
-			return new ParseResult<Exp>(new IntegerExp(asInt.value + 1), startPos + 2);
-		}
-      else if (tokens[startPos] instanceof ClassToken) {
-			final VariableToken asVar = (VariableToken) tokens[startPos + 1];
-			return new ParseResult<Exp>(new ClassExp(asVar.name), startPos + 2);
-		} else if (tokens[startPos] instanceof ThisToken) {
-			checkTokenIs(startPos + 1, new PeriodToken());
-			final VariableToken asVar = (VariableToken) tokens[startPos + 2];
-			return new ParseResult<Exp>(new ThisExp(asVar.name), startPos + 3);
+			final Exp exp = parseExp();
+			expect(TokenKind.SEMICOLON);
+			return at(startPos, new AssignStmt(new Variable(tokens.text(startPos)), exp));
+		} else {
+			final Exp target = parseObjectExp();
+			if (!(target instanceof GetExp)) {
+				throw new ParseException("Expected a statement at " + tokens.describePosition(startPos), startPos);
+			}
+			final GetExp field = (GetExp)target;
+			expect(TokenKind.EQUAL);
+			final Exp exp = parseExp();
+			expect(TokenKind.SEMICOLON);
+			return at(startPos, new PutStmt(field.target, field.name, field.field, exp));
+		}
+	}
+
+	// a variable, this, or new, followed by any number of field accesses
+	// and method calls
+	private Exp parseObjectExp() throws ParseException {
+		final int startPos = pos;
+		Exp exp;
+		if (tokens.kind(startPos) == TokenKind.THIS) {
+			pos++;
+			exp = at(startPos, new VariableExp(ClassGenerator.thisVariable));
+		} else if (tokens.kind(startPos) == TokenKind.NEW) {
+			pos++;
+			final ClassName name = new ClassName(expectVariable());
+			final List<Exp> args = parseArgs();
+			exp = at(startPos, new NewExp(name, args));
+		} else {
+			final String name = expectVariable();
+			if (name.equals("true") || name.equals("false")) {
+				exp = at(startPos, new BooleanExp(name.equals("true")));
+			} else {
+				exp = at(startPos, new VariableExp(new Variable(name)));
+			}
+		}
+
+		while (tokens.kind(pos) == TokenKind.PERIOD) {
+			final ClassName className = classOf(exp, pos);
+			pos++;
+			final String member = expectVariable();
+			if (tokens.kind(pos) == TokenKind.LEFT_PAREN) {
+				final List<Exp> args = parseArgs();
+				exp = at(startPos, new MethodCallExp(exp, className, new MethodName(member), args));
+			} else {
+				exp = at(startPos, new GetExp(exp, className, new Variable(member)));
+			}
+		}
+		return exp;
+	}
+
+	// The class whose field or method follows exp, going by declared types.
+	// position is the '.' after exp.
+	private ClassName classOf(final Exp exp, final int position) throws ParseException {
+		Type type = null;
+		if (exp instanceof NewExp) {
+			return ((NewExp)exp).name;
+		} else if (exp instanceof VariableExp) {
+			type = variableTypes.get(((VariableExp)exp).variable.name);
+		} else if (exp instanceof GetExp && ((GetExp)exp).name.equals(currentClass)) {
+			type = fieldTypes.get(((GetExp)exp).field.name);
+		}
+
+		if (type instanceof ReferenceType) {
+			return ((ReferenceType)type).refersTo;
 		} else {
-			checkTokenIs(startPos, new LeftParenToken());
-			final ParseResult<Exp> inner = parseExp(startPos + 1);
-			checkTokenIs(inner.nextPos, new RightParenToken());
-			return new ParseResult<Exp>(inner.result, inner.nextPos + 1);
-		}
-	}
-
-	public ParseResult<Exp> parseExp(final int startPos) throws ParseException {
-		if (tokens[startPos] instanceof IfToken) {
-			checkTokenIs(startPos + 1, new LeftParenToken());
-			final ParseResult<Exp> guard = parseExp(startPos + 2);
-			checkTokenIs(guard.nextPos, new RightParenToken());
-			final ParseResult<Exp> ifTrue = parseExp(guard.nextPos + 1);
-			checkTokenIs(ifTrue.nextPos, new ElseToken());
-			final ParseResult<Exp> ifFalse = parseExp(ifTrue.nextPos + 1);
-			return new ParseResult<Exp>(new IfExp(guard.result, ifTrue.result, ifFalse.result), ifFalse.nextPos);
-		} else if (tokens[startPos] instanceof WhileToken) {
-			checkTokenIs(startPos + 1, new LeftParenToken());
-			final ParseResult<Exp> guard = parseExp(startPos + 2);
-			checkTokenIs(guard.nextPos, new RightParenToken());
-			final ParseResult<Exp> ifTrue = parseExp(guard.nextPos + 1);
-			return new ParseResult<Exp>(new WhileExp(guard.result, ifTrue.result), ifTrue.nextPos);
-		} else if (tokens[startPos] instanceof ReturnToken) {
-			final ParseResult<Exp> ifTrue = parseExp(startPos + 1);
-			return new ParseResult<Exp>(new ReturnExp(ifTrue.result), ifTrue.nextPos);
-		} else if (tokens[startPos] instanceof ForToken) {
-			checkTokenIs(startPos + 1, new LeftParenToken());
-			final ParseResult<Exp> init = parseExp(startPos + 2);
-			final ParseResult<Exp> cond = parseExp(startPos + 3);
-			final ParseResult<Exp> inc = parseExp(startPos + 4);
-			checkTokenIs(inc.nextPos, new RightParenToken());
-			final ParseResult<Exp> exec = parseExp(inc.nextPos + 1);
-			return new ParseResult<Exp>(new ForExp(init.result, cond.result, inc.result, exec.result), exec.nextPos);
-		} else if (tokens[startPos] instanceof ClassToken) {
-				if(tokens.length > startPos + 4) {
-			checkTokenIs(startPos + 2, new ExtendsToken());
-			final VariableToken asVar = (VariableToken) tokens[startPos + 1];
-			final VariableToken asVar2 = (VariableToken) tokens[startPos + 4];
-			return new ParseResult<Exp>(new ExtendExp(new ClassExp(asVar.name),new ClassExp(asVar2.name)), startPos + 5);
-				}
-				return parseAdditiveExp(startPos);
-		} else if (tokens[startPos] instanceof BreakToken) {
-			checkTokenIs(startPos + 1, new SemiColonToken());
-         return new ParseResult<Exp>(new BreakExp(), startPos + 2);
-		}else if (tokens[startPos] instanceof PrintToken) {
-			checkTokenIs(startPos + 1, new LeftParenToken());
-			final ParseResult<Exp> printing = parseExp(startPos + 2);
-			checkTokenIs(printing.nextPos, new RightParenToken());
-         checkTokenIs(printing.nextPos + 1, new SemiColonToken());
-			return new ParseResult<Exp>(new PrintExp(printing.result), printing.nextPos + 2);
-		} else if (tokens[startPos] instanceof PublicToken || tokens[startPos] instanceof PrivateToken || tokens[startPos] instanceof ProtectedToken) {
-			if(tokens.length < 4) {
-				checkTokenIs(startPos + 1, new SemiColonToken());
-				return parseAdditiveExp(startPos);
-			}
-			final VariableToken type = (VariableToken) tokens[startPos + 1];
-			final VariableToken name = (VariableToken) tokens[startPos + 2];
-			final ParseResult<Exp> input = parseExp(startPos + 3);
-			return new ParseResult<Exp>(new Methoddef(tokens[startPos], new IntType(), name.name, input.result), input.nextPos);
-		}     
-      else {
-			return parseAdditiveExp(startPos);
+			throw new ParseException("Can't tell which class has this member, at " + tokens.describePosition(position), position);
 		}
 	}
+	// ---END PROGRAM PARSING---
 
 	public Exp parseToplevelExp() throws ParseException {
-		final ParseResult<Exp> result = parseExp(0);
+		pos = 0;
+		final Exp result = parseExp();
 
-		if (result.nextPos == tokens.length) {
-			return result.result;
+		if (pos == tokens.size()) {
+			return result;
 		} else {
-			throw new ParseException("extra tokens at end", result.nextPos - 1);
+			throw new ParseException("extra tokens at end, starting at " + tokens.describePosition(pos), pos - 1);
 		}
 	}
 }
@@ -1,5 +1,7 @@
 package code;
 public class PeriodToken implements Token {
+    public static final PeriodToken INSTANCE = new PeriodToken();
+
     public boolean equals(final Object other) {
         return other instanceof PeriodToken;
     }
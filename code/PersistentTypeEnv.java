@@ -0,0 +1,211 @@
+package code;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// A TypeEnv kept as a hash array mapped trie.  Each level of the trie
+// looks at 5 more bits of a variable's hash, and only has slots for the
+// values of those bits which are in use, so lookups and extensions touch
+// O(log n) small nodes.  Extending copies just the path down to the new
+// variable and shares everything else with the environment it came from.
+public class PersistentTypeEnv implements TypeEnv {
+    // ---BEGIN CONSTANTS---
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+    // ---END CONSTANTS---
+
+    public static final PersistentTypeEnv EMPTY = new PersistentTypeEnv(null, 0);
+
+    private static abstract class Node {
+        // null if variable isn't under this node
+        public abstract Type lookup(Variable variable, int hash, int shift);
+
+        public abstract Node extend(Leaf leaf, int shift);
+
+        public abstract void addTo(Map<Variable, Type> map);
+    } // Node
+
+    private static class Leaf extends Node {
+        public final int hash;
+        public final Variable variable;
+        public final Type type;
+
+        public Leaf(final int hash, final Variable variable, final Type type) {
+            this.hash = hash;
+            this.variable = variable;
+            this.type = type;
+        }
+
+        public Type lookup(final Variable variable, final int hash, final int shift) {
+            return (hash == this.hash && variable.equals(this.variable)) ? type : null;
+        }
+
+        public Node extend(final Leaf leaf, final int shift) {
+            if (leaf.hash != hash) {
+                return branch(this, hash, leaf, shift);
+            } else if (leaf.variable.equals(variable)) {
+                return leaf;
+            } else {
+                return new Collision(hash, new Leaf[]{ this, leaf });
+            }
+        }
+
+        public void addTo(final Map<Variable, Type> map) {
+            map.put(variable, type);
+        }
+    } // Leaf
+
+    // variables whose hashes are exactly the same
+    private static class Collision extends Node {
+        public final int hash;
+        public final Leaf[] leaves;
+
+        public Collision(final int hash, final Leaf[] leaves) {
+            this.hash = hash;
+            this.leaves = leaves;
+        }
+
+        public Type lookup(final Variable variable, final int hash, final int shift) {
+            if (hash == this.hash) {
+                for (final Leaf leaf : leaves) {
+                    if (variable.equals(leaf.variable)) {
+                        return leaf.type;
+                    }
+                }
+            }
+            return null;
+        }
+
+        public Node extend(final Leaf leaf, final int shift) {
+            if (leaf.hash != hash) {
+                return branch(this, hash, leaf, shift);
+            }
+            for (int index = 0; index < leaves.length; index++) {
+                if (leaf.variable.equals(leaves[index].variable)) {
+                    final Leaf[] replaced = leaves.clone();
+                    replaced[index] = leaf;
+                    return new Collision(hash, replaced);
+                }
+            }
+            final Leaf[] added = Arrays.copyOf(leaves, leaves.length + 1);
+            added[leaves.length] = leaf;
+            return new Collision(hash, added);
+        }
+
+        public void addTo(final Map<Variable, Type> map) {
+            for (final Leaf leaf : leaves) {
+                leaf.addTo(map);
+            }
+        }
+    } // Collision
+
+    // children[i] holds the variables with the i'th set bit of bitmap as
+    // their bits at this level
+    private static class Branch extends Node {
+        public final int bitmap;
+        public final Node[] children;
+
+        public Branch(final int bitmap, final Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        public Type lookup(final Variable variable, final int hash, final int shift) {
+            final int bit = 1 << ((hash >>> shift) & LEVEL_MASK);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            return children[Integer.bitCount(bitmap & (bit - 1))].lookup(variable, hash, shift + BITS_PER_LEVEL);
+        }
+
+        public Node extend(final Leaf leaf, final int shift) {
+            final int bit = 1 << ((leaf.hash >>> shift) & LEVEL_MASK);
+            final int index = Integer.bitCount(bitmap & (bit - 1));
+            if ((bitmap & bit) != 0) {
+                final Node[] replaced = children.clone();
+                replaced[index] = children[index].extend(leaf, shift + BITS_PER_LEVEL);
+                return new Branch(bitmap, replaced);
+            } else {
+                final Node[] added = new Node[children.length + 1];
+                System.arraycopy(children, 0, added, 0, index);
+                added[index] = leaf;
+                System.arraycopy(children, index, added, index + 1, children.length - index);
+                return new Branch(bitmap | bit, added);
+            }
+        }
+
+        public void addTo(final Map<Variable, Type> map) {
+            for (final Node child : children) {
+                child.addTo(map);
+            }
+        }
+    } // Branch
+
+    // Branches to hold both a leaf or collision with hash, and leaf, which
+    // has a different hash; as many levels as it takes for them to differ
+    private static Node branch(final Node existing, final int hash, final Leaf leaf, final int shift) {
+        final int existingBits = (hash >>> shift) & LEVEL_MASK;
+        final int leafBits = (leaf.hash >>> shift) & LEVEL_MASK;
+        if (existingBits == leafBits) {
+            return new Branch(1 << existingBits, new Node[]{ branch(existing, hash, leaf, shift + BITS_PER_LEVEL) });
+        } else if (existingBits < leafBits) {
+            return new Branch((1 << existingBits) | (1 << leafBits), new Node[]{ existing, leaf });
+        } else {
+            return new Branch((1 << existingBits) | (1 << leafBits), new Node[]{ leaf, existing });
+        }
+    } // branch
+
+    // ---BEGIN INSTANCE VARIABLES---
+    // null when empty
+    private final Node root;
+    private final int size;
+    // ---END INSTANCE VARIABLES---
+
+    private PersistentTypeEnv(final Node root, final int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static TypeEnv fromMap(final Map<Variable, Type> map) {
+        TypeEnv result = EMPTY;
+        for (final Map.Entry<Variable, Type> entry : map.entrySet()) {
+            result = result.extend(entry.getKey(), entry.getValue());
+        }
+        return result;
+    } // fromMap
+
+    public Type lookup(final Variable variable) {
+        return (root == null) ? null : root.lookup(variable, variable.hashCode(), 0);
+    } // lookup
+
+    public boolean contains(final Variable variable) {
+        return lookup(variable) != null;
+    } // contains
+
+    public TypeEnv extend(final Variable variable, final Type type) {
+        final Leaf leaf = new Leaf(variable.hashCode(), variable, type);
+        if (root == null) {
+            return new PersistentTypeEnv(leaf, 1);
+        }
+        final int newSize = contains(variable) ? size : size + 1;
+        return new PersistentTypeEnv(root.extend(leaf, 0), newSize);
+    } // extend
+
+    public int size() {
+        return size;
+    } // size
+
+    public Map<Variable, Type> toMap() {
+        final Map<Variable, Type> result = new HashMap<Variable, Type>();
+        if (root != null) {
+            root.addTo(result);
+        }
+        return result;
+    } // toMap
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+} // PersistentTypeEnv
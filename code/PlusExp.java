@@ -1,5 +1,5 @@
 package code;
-public class PlusExp implements Exp {
+public class PlusExp extends Node implements Exp {
     @Override
 	public int hashCode() {
 		final int prime = 31;
@@ -1,5 +1,5 @@
 package code;
-public class PrintExp implements Exp {
+public class PrintExp extends Node implements Exp {
 
 public final Exp name;
 
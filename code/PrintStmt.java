@@ -1,6 +1,6 @@
 package code;
 
-public class PrintStmt implements Stmt {
+public class PrintStmt extends Node implements Stmt {
     public final Variable variable;
 
     public PrintStmt(final Variable variable) {
@@ -1,5 +1,7 @@
 package code;
 public class PrintToken implements Token {
+    public static final PrintToken INSTANCE = new PrintToken();
+
     public boolean equals(final Object other) {
         return other instanceof PrintToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class PrivateToken implements Token {
+    public static final PrivateToken INSTANCE = new PrivateToken();
+
     public boolean equals(final Object other) {
         return other instanceof PrivateToken;
     }
@@ -5,10 +5,23 @@ import java.util.List;
 public class Program {
     public final List<FirstOrderFunctionDefinition> functions;
     public final List<ClassDefinition> classDefs;
+    // where the program came from, for line numbers in the generated code;
+    // both null for programs which weren't parsed from a file
+    public final String sourceFile;
+    public final LineMap lines;
     
     public Program(final List<FirstOrderFunctionDefinition> functions,final List<ClassDefinition> classDefs) {
+        this(functions, classDefs, null, null);
+    }
+
+    public Program(final List<FirstOrderFunctionDefinition> functions,
+                   final List<ClassDefinition> classDefs,
+                   final String sourceFile,
+                   final LineMap lines) {
         this.classDefs = classDefs;
         this.functions = functions;    
+        this.sourceFile = sourceFile;
+        this.lines = lines;
     }
     
 } // Program
@@ -1,5 +1,7 @@
 package code;
 public class ProtectedToken implements Token {
+    public static final ProtectedToken INSTANCE = new ProtectedToken();
+
     public boolean equals(final Object other) {
         return other instanceof ProtectedToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class PublicToken implements Token {
+    public static final PublicToken INSTANCE = new PublicToken();
+
     public boolean equals(final Object other) {
         return other instanceof PublicToken;
     }
@@ -1,6 +1,6 @@
 package code;
 
-public class PutStmt implements Stmt {
+public class PutStmt extends Node implements Stmt {
     public final Exp target;
     public final ClassName name;
     public final Variable field;
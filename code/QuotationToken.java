@@ -1,5 +1,7 @@
 package code;
 public class QuotationToken implements Token {
+    public static final QuotationToken INSTANCE = new QuotationToken();
+
     public boolean equals(final Object other) {
         return other instanceof QuotationToken;
     }
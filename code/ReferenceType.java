@@ -2,9 +2,12 @@ package code;
 
 public class ReferenceType implements Type {
     public final ClassName refersTo;
+    // worked out once, since code generation asks for it over and over
+    private final String descriptor;
 
     public ReferenceType(final ClassName refersTo) {
         this.refersTo = refersTo;
+        descriptor = "L" + refersTo.name + ";";
     }
 
     @Override
@@ -19,7 +22,7 @@ public class ReferenceType implements Type {
     }
 
     public String toDescriptorString() {
-        return "L" + refersTo.name + ";";
+        return descriptor;
     }
 
     public String toSignatureString() {
@@ -1,5 +1,5 @@
 package code;
-public class ReturnExp implements Exp {
+public class ReturnExp extends Node implements Exp {
   public final Exp value;
 
   public ReturnExp(final Exp value) {
@@ -1,5 +1,7 @@
 package code;
 public class ReturnToken implements Token {
+    public static final ReturnToken INSTANCE = new ReturnToken();
+
     public boolean equals(final Object other) {
         return other instanceof ReturnToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class RightBracketToken implements Token {
+  public static final RightBracketToken INSTANCE = new RightBracketToken();
+
   public boolean equals(final Object other) {
     return other instanceof RightBracketToken;
 }
@@ -1,5 +1,7 @@
 package code;
 public class RightParenToken implements Token {
+    public static final RightParenToken INSTANCE = new RightParenToken();
+
     public boolean equals(final Object other) {
         return other instanceof RightParenToken;
     }
@@ -1,5 +1,7 @@
 package code;
 public class SemiColonToken implements Token {
+    public static final SemiColonToken INSTANCE = new SemiColonToken();
+
     public boolean equals(final Object other) {
         return other instanceof SemiColonToken;
     }
@@ -1,3 +1,7 @@
 package code;
 
-public interface Stmt {}
+public interface Stmt {
+    // see Node
+    public int getPosition();
+    public void setPosition(int position);
+}
@@ -1,5 +1,7 @@
 package code;
 public class StringToken implements Token {
+    public static final StringToken INSTANCE = new StringToken();
+
     public boolean equals(final Object other) {
         return other instanceof StringToken;
     }
@@ -1,5 +1,5 @@
 package code;
-public class SubExp implements Exp{
+public class SubExp extends Node implements Exp{
 	@Override
 	public int hashCode() {
 		final int prime = 31;
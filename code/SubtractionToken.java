@@ -1,5 +1,7 @@
 package code;
 public class SubtractionToken implements Token {
+    public static final SubtractionToken INSTANCE = new SubtractionToken();
+
     public boolean equals(final Object other) {
         return other instanceof SubtractionToken;
     }
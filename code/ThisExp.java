@@ -1,5 +1,5 @@
 package code;
-public class ThisExp implements Exp {
+public class ThisExp extends Node implements Exp {
     @Override
 	public int hashCode() {
 		final int prime = 31;
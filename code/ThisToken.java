@@ -1,5 +1,7 @@
 package code;
 public class ThisToken implements Token {
+    public static final ThisToken INSTANCE = new ThisToken();
+
     public boolean equals(final Object other) {
         return other instanceof ThisToken;
     }
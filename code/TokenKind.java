@@ -0,0 +1,182 @@
+package code;
+
+import java.util.Map;
+import java.util.HashMap;
+
+// Small integer codes for every kind of token.  TokenStream stores these
+// instead of Token objects, and the parser dispatches on them.
+//
+// VARIABLE, INTEGER, LONG, BOOLEAN and CHAR tokens carry data (their text or their
+// value); every other kind is fully described by its code, and maps to the
+// shared INSTANCE of its Token class.
+public class TokenKind {
+    // ---BEGIN CONSTANTS---
+    // position past the last token
+    public static final int EOF = 0;
+
+    public static final int VARIABLE = 1;
+    public static final int INTEGER = 2;
+    public static final int BOOLEAN = 3;
+    public static final int CHAR = 4;
+
+    public static final int LEFT_PAREN = 5;
+    public static final int RIGHT_PAREN = 6;
+    public static final int LEFT_BRACKET = 7;
+    public static final int RIGHT_BRACKET = 8;
+    public static final int SEMICOLON = 9;
+    public static final int PERIOD = 10;
+    public static final int QUOTATION = 11;
+
+    public static final int ADDITION = 12;
+    public static final int SUBTRACTION = 13;
+    public static final int MULTIPLICATION = 14;
+    public static final int DIVISION = 15;
+    public static final int MODULO = 16;
+    public static final int INCREMENT = 17;
+    public static final int DECREMENT = 18;
+    public static final int EQUAL = 19;
+    public static final int EQUAL_TO = 20;
+    public static final int NOT_EQUAL_TO = 21;
+    public static final int LESS_THAN = 22;
+    public static final int LESS_THAN_EQUAL_TO = 23;
+    public static final int GREATER_THAN = 24;
+    public static final int GREATER_THAN_EQUAL_TO = 25;
+    public static final int LOGICAL_AND = 26;
+    public static final int LOGICAL_OR = 27;
+    public static final int LOGICAL_NOT = 28;
+
+    public static final int IF = 29;
+    public static final int ELSE = 30;
+    public static final int WHILE = 31;
+    public static final int FOR = 32;
+    public static final int BREAK = 33;
+    public static final int CONTINUE = 34;
+    public static final int RETURN = 35;
+    public static final int PRINT = 36;
+    public static final int CLASS = 37;
+    public static final int EXTENDS = 38;
+    public static final int NEW = 39;
+    public static final int THIS = 40;
+    public static final int PUBLIC = 41;
+    public static final int PRIVATE = 42;
+    public static final int PROTECTED = 43;
+    public static final int STRING = 44;
+    public static final int VOID = 45;
+
+    // an integer literal which doesn't fit in an int
+    public static final int LONG = 46;
+
+    public static final int COMMA = 47;
+
+    public static final int NUM_KINDS = 48;
+    // ---END CONSTANTS---
+
+    private static final BooleanToken FALSE = new BooleanToken(false);
+    private static final BooleanToken TRUE = new BooleanToken(true);
+
+    // the shared token for each kind which carries no data
+    private static final Token[] CANONICAL = new Token[NUM_KINDS];
+    private static final String[] NAMES = new String[NUM_KINDS];
+    // kinds spelled by a reserved word, which is their name
+    private static final boolean[] IS_KEYWORD = new boolean[NUM_KINDS];
+    private static final Map<Class<?>, Integer> KIND_OF_CLASS = new HashMap<Class<?>, Integer>();
+
+    private static void define(final int kind, final String name, final Token canonical) {
+        assert(NAMES[kind] == null);
+        NAMES[kind] = name;
+        CANONICAL[kind] = canonical;
+        if (canonical != null) {
+            KIND_OF_CLASS.put(canonical.getClass(), kind);
+        }
+    } // define
+
+    private static void defineKeyword(final int kind, final String spelling, final Token canonical) {
+        define(kind, spelling, canonical);
+        IS_KEYWORD[kind] = true;
+    } // defineKeyword
+
+    static {
+        define(EOF, "end of input", null);
+        define(VARIABLE, "variable", null);
+        define(INTEGER, "integer", null);
+        defineKeyword(BOOLEAN, "boolean", null);
+        define(CHAR, "char", null);
+        define(LONG, "long", null);
+        KIND_OF_CLASS.put(VariableToken.class, VARIABLE);
+        KIND_OF_CLASS.put(IntegerToken.class, INTEGER);
+        KIND_OF_CLASS.put(BooleanToken.class, BOOLEAN);
+        KIND_OF_CLASS.put(CharToken.class, CHAR);
+        KIND_OF_CLASS.put(LongToken.class, LONG);
+
+        define(LEFT_PAREN, "(", LeftParenToken.INSTANCE);
+        define(RIGHT_PAREN, ")", RightParenToken.INSTANCE);
+        define(LEFT_BRACKET, "{", LeftBracketToken.INSTANCE);
+        define(RIGHT_BRACKET, "}", RightBracketToken.INSTANCE);
+        define(SEMICOLON, ";", SemiColonToken.INSTANCE);
+        define(PERIOD, ".", PeriodToken.INSTANCE);
+        define(QUOTATION, "\"", QuotationToken.INSTANCE);
+        define(COMMA, ",", CommaToken.INSTANCE);
+
+        define(ADDITION, "+", AdditionToken.INSTANCE);
+        define(SUBTRACTION, "-", SubtractionToken.INSTANCE);
+        define(MULTIPLICATION, "*", MultiplicationToken.INSTANCE);
+        define(DIVISION, "/", DivisionToken.INSTANCE);
+        define(MODULO, "%", ModuloToken.INSTANCE);
+        define(INCREMENT, "++", IncrementToken.INSTANCE);
+        define(DECREMENT, "--", DecrementToken.INSTANCE);
+        define(EQUAL, "=", EqualToken.INSTANCE);
+        define(EQUAL_TO, "==", EqualToToken.INSTANCE);
+        define(NOT_EQUAL_TO, "!=", NotEqualToToken.INSTANCE);
+        define(LESS_THAN, "<", LessThanToken.INSTANCE);
+        define(LESS_THAN_EQUAL_TO, "<=", LessThanEqualToToken.INSTANCE);
+        define(GREATER_THAN, ">", GreaterThanToken.INSTANCE);
+        define(GREATER_THAN_EQUAL_TO, ">=", GreaterThanEqualToToken.INSTANCE);
+        define(LOGICAL_AND, "&&", LogicalANDToken.INSTANCE);
+        define(LOGICAL_OR, "||", LogicalORToken.INSTANCE);
+        define(LOGICAL_NOT, "!", LogicalNOTToken.INSTANCE);
+
+        defineKeyword(IF, "if", IfToken.INSTANCE);
+        defineKeyword(ELSE, "else", ElseToken.INSTANCE);
+        defineKeyword(WHILE, "while", WhileToken.INSTANCE);
+        defineKeyword(FOR, "for", ForToken.INSTANCE);
+        defineKeyword(BREAK, "break", BreakToken.INSTANCE);
+        defineKeyword(CONTINUE, "continue", ContinueToken.INSTANCE);
+        defineKeyword(RETURN, "return", ReturnToken.INSTANCE);
+        defineKeyword(PRINT, "print", PrintToken.INSTANCE);
+        defineKeyword(CLASS, "Class", ClassToken.INSTANCE);
+        defineKeyword(EXTENDS, "extends", ExtendsToken.INSTANCE);
+        defineKeyword(NEW, "new", NewToken.INSTANCE);
+        defineKeyword(THIS, "this", ThisToken.INSTANCE);
+        defineKeyword(PUBLIC, "public", PublicToken.INSTANCE);
+        defineKeyword(PRIVATE, "private", PrivateToken.INSTANCE);
+        defineKeyword(PROTECTED, "protected", ProtectedToken.INSTANCE);
+        defineKeyword(STRING, "String", StringToken.INSTANCE);
+        defineKeyword(VOID, "void", VoidToken.INSTANCE);
+    }
+
+    public static String name(final int kind) {
+        return NAMES[kind];
+    } // name
+
+    // whether kind is a reserved word, spelled as its name
+    public static boolean isKeyword(final int kind) {
+        return IS_KEYWORD[kind];
+    } // isKeyword
+
+    public static int kindOf(final Token token) {
+        final Integer kind = KIND_OF_CLASS.get(token.getClass());
+        if (kind == null) {
+            throw new IllegalArgumentException("Unknown token: " + token);
+        }
+        return kind.intValue();
+    } // kindOf
+
+    // the shared token for a kind without data, or null for the kinds which have some
+    public static Token canonical(final int kind) {
+        return CANONICAL[kind];
+    } // canonical
+
+    public static BooleanToken booleanToken(final boolean value) {
+        return (value) ? TRUE : FALSE;
+    } // booleanToken
+} // TokenKind
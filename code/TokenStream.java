@@ -0,0 +1,289 @@
+package code;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// A sequence of tokens stored as parallel primitive arrays rather than as Token
+// objects.  Token i has kind kinds[i] (see TokenKind), and its text is
+// input[starts[i], starts[i] + lengths[i]).  values[i] holds the value of
+// INTEGER, BOOLEAN and CHAR tokens, and is 0 for everything else.  LONG
+// tokens are rare, so rather than widen values their value is read back out
+// of their text when asked for.  There are
+// fewer than 128 kinds, so kinds are stored as bytes.
+//
+// Nothing is allocated per token; Token objects are only built if someone
+// asks for them with token(i).
+public class TokenStream {
+    // ---BEGIN CONSTANTS---
+    public static final int DEFAULT_CAPACITY = 16;
+    // ---END CONSTANTS---
+
+    // ---BEGIN INSTANCE VARIABLES---
+    private final char[] input;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int size;
+    // false for streams made by fromTokens, whose input is made up
+    private boolean hasSource;
+    // built the first time someone needs a line number
+    private LineMap lineMap;
+    // ---END INSTANCE VARIABLES---
+
+    public TokenStream(final char[] input, final int capacity) {
+        this.input = input;
+        final int initial = Math.max(capacity, DEFAULT_CAPACITY);
+        kinds = new byte[initial];
+        starts = new int[initial];
+        lengths = new int[initial];
+        values = new int[initial];
+        size = 0;
+        hasSource = true;
+        lineMap = null;
+    }
+
+    public TokenStream(final char[] input) {
+        this(input, DEFAULT_CAPACITY);
+    }
+
+    public void add(final int kind,
+                    final int start,
+                    final int length,
+                    final int value) {
+        if (size == kinds.length) {
+            final int newCapacity = Math.max(kinds.length + (kinds.length >> 1), DEFAULT_CAPACITY);
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            starts = Arrays.copyOf(starts, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+        kinds[size] = (byte)kind;
+        starts[size] = start;
+        lengths[size] = length;
+        values[size] = value;
+        size++;
+    } // add
+
+    // drops any spare capacity, for streams that will be kept around
+    public void trimToSize() {
+        if (size < kinds.length) {
+            kinds = Arrays.copyOf(kinds, size);
+            starts = Arrays.copyOf(starts, size);
+            lengths = Arrays.copyOf(lengths, size);
+            values = Arrays.copyOf(values, size);
+        }
+    } // trimToSize
+
+    // The tokens of each part, one after another.  The parts must all be over
+    // input.
+    public static TokenStream concat(final char[] input, final TokenStream[] parts) {
+        int total = 0;
+        for (final TokenStream part : parts) {
+            total += part.size;
+        }
+
+        final TokenStream result = new TokenStream(input, total);
+        for (final TokenStream part : parts) {
+            System.arraycopy(part.kinds, 0, result.kinds, result.size, part.size);
+            System.arraycopy(part.starts, 0, result.starts, result.size, part.size);
+            System.arraycopy(part.lengths, 0, result.lengths, result.size, part.size);
+            System.arraycopy(part.values, 0, result.values, result.size, part.size);
+            result.size += part.size;
+        }
+        return result;
+    } // concat
+
+    // This stream with tokens [from, to) swapped for replacement, over
+    // newInput.  Tokens from to on move by shift characters.
+    public TokenStream splice(final char[] newInput,
+                              final int from,
+                              final int to,
+                              final TokenStream replacement,
+                              final int shift) {
+        final int tail = size - to;
+        final TokenStream result = new TokenStream(newInput, from + replacement.size + tail);
+
+        System.arraycopy(kinds, 0, result.kinds, 0, from);
+        System.arraycopy(starts, 0, result.starts, 0, from);
+        System.arraycopy(lengths, 0, result.lengths, 0, from);
+        System.arraycopy(values, 0, result.values, 0, from);
+        result.size = from;
+
+        System.arraycopy(replacement.kinds, 0, result.kinds, result.size, replacement.size);
+        System.arraycopy(replacement.starts, 0, result.starts, result.size, replacement.size);
+        System.arraycopy(replacement.lengths, 0, result.lengths, result.size, replacement.size);
+        System.arraycopy(replacement.values, 0, result.values, result.size, replacement.size);
+        result.size += replacement.size;
+
+        System.arraycopy(kinds, to, result.kinds, result.size, tail);
+        System.arraycopy(lengths, to, result.lengths, result.size, tail);
+        System.arraycopy(values, to, result.values, result.size, tail);
+        for (int index = 0; index < tail; index++) {
+            result.starts[result.size + index] = starts[to + index] + shift;
+        }
+        result.size += tail;
+        return result;
+    } // splice
+
+    // index of the first token ending at or after position, or size() if
+    // there isn't one
+    public int firstEndingAtOrAfter(final int position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (starts[middle] + lengths[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    } // firstEndingAtOrAfter
+
+    public int size() {
+        return size;
+    }
+
+    public char[] input() {
+        return input;
+    }
+
+    // TokenKind.EOF for any index past the end, so lookahead never needs a
+    // bounds check
+    public int kind(final int index) {
+        return (index < size) ? kinds[index] : TokenKind.EOF;
+    }
+
+    public int start(final int index) {
+        return starts[index];
+    }
+
+    public int length(final int index) {
+        return lengths[index];
+    }
+
+    public int intValue(final int index) {
+        return values[index];
+    }
+
+    // Where token index starts in the input, or just past the last token for
+    // an index past the end.  Node.NO_POSITION if the stream has no real
+    // source.
+    public int position(final int index) {
+        if (!hasSource) {
+            return Node.NO_POSITION;
+        } else if (index < size) {
+            return starts[index];
+        } else if (size > 0) {
+            return starts[size - 1] + lengths[size - 1];
+        } else {
+            return 0;
+        }
+    } // position
+
+    // null if the stream has no real source
+    public LineMap lineMap() {
+        if (hasSource && lineMap == null) {
+            lineMap = new LineMap(input);
+        }
+        return lineMap;
+    } // lineMap
+
+    // where token index is, for error messages
+    public String describePosition(final int index) {
+        if (hasSource) {
+            return lineMap().describe(position(index));
+        } else {
+            return "token " + index;
+        }
+    } // describePosition
+
+    // the value of an INTEGER or LONG token
+    public long longValue(final int index) {
+        if (kinds[index] == TokenKind.LONG) {
+            // the tokenizer has already checked this fits.  Only fromTokens
+            // can give a negative one.
+            final int end = starts[index] + lengths[index];
+            final boolean negative = input[starts[index]] == '-';
+            long result = 0;
+            for (int offset = (negative) ? starts[index] + 1 : starts[index]; offset < end; offset++) {
+                result = result * 10 + Character.digit(input[offset], 10);
+            }
+            return (negative) ? -result : result;
+        } else {
+            return values[index];
+        }
+    } // longValue
+
+    public String text(final int index) {
+        return new String(input, starts[index], lengths[index]);
+    } // text
+
+    public Token token(final int index) {
+        switch (kinds[index]) {
+        case TokenKind.VARIABLE:
+            return new VariableToken(input, starts[index], lengths[index]);
+        case TokenKind.INTEGER:
+            return new IntegerToken(values[index]);
+        case TokenKind.LONG:
+            return new LongToken(longValue(index));
+        case TokenKind.BOOLEAN:
+            return TokenKind.booleanToken(values[index] != 0);
+        case TokenKind.CHAR:
+            return new CharToken((char)values[index]);
+        default:
+            return TokenKind.canonical(kinds[index]);
+        }
+    } // token
+
+    public List<Token> toTokens() {
+        final List<Token> result = new ArrayList<Token>(size);
+        for (int index = 0; index < size; index++) {
+            result.add(token(index));
+        }
+        return result;
+    } // toTokens
+
+    // For tokens that didn't come from the tokenizer.  Variable names (and the
+    // digits of LONG tokens) are laid out one after another in a fresh input
+    // buffer.
+    public static TokenStream fromTokens(final Token[] tokens) {
+        final StringBuilder text = new StringBuilder();
+        for (final Token token : tokens) {
+            if (token instanceof VariableToken) {
+                text.append(((VariableToken)token).getName());
+            } else if (token instanceof LongToken) {
+                text.append(((LongToken)token).value);
+            }
+        }
+
+        final char[] input = text.toString().toCharArray();
+        final TokenStream result = new TokenStream(input, tokens.length);
+        result.hasSource = false;
+        int offset = 0;
+        for (final Token token : tokens) {
+            final int kind = TokenKind.kindOf(token);
+            if (token instanceof VariableToken) {
+                final int length = ((VariableToken)token).length();
+                result.add(kind, offset, length, 0);
+                offset += length;
+            } else if (token instanceof LongToken) {
+                final int length = Long.toString(((LongToken)token).value).length();
+                result.add(kind, offset, length, 0);
+                offset += length;
+            } else if (token instanceof IntegerToken) {
+                result.add(kind, offset, 0, ((IntegerToken)token).value);
+            } else if (token instanceof BooleanToken) {
+                result.add(kind, offset, 0, (((BooleanToken)token).value) ? 1 : 0);
+            } else if (token instanceof CharToken) {
+                result.add(kind, offset, 0, ((CharToken)token).value);
+            } else {
+                result.add(kind, offset, 0, 0);
+            }
+        }
+        return result;
+    } // fromTokens
+} // TokenStream
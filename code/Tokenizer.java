@@ -1,196 +1,389 @@
 package code;
 import java.util.List;
 import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class Tokenizer {
+	public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	// Either the whole input, or (when reading from source) a fixed-size window
+	// onto it which gets refilled as tokens are read.  Only input[0, limit)
+	// holds characters.
 	private final char[] input;
+	private int limit;
+	// null if input is all there is
+	private final Reader source;
+	private boolean sourceDone;
+	// characters slid off the front of the buffer so far
+	private long discarded;
 	private int inputPos;
 
+	// what the last call to lexOne found
+	private int tokenKind;
+	private int tokenStart;
+	private int tokenValue;
+	// the value of a LONG token, which doesn't fit in tokenValue
+	private long tokenLongValue;
+
 	public Tokenizer(final char[] input) {
+		this(input, 0, input.length);
+	}
+
+	// Only tokenizes input[from, to).  Token positions are still relative to
+	// the start of input.
+	public Tokenizer(final char[] input, final int from, final int to) {
 		this.input = input;
-		inputPos = 0;
+		limit = to;
+		source = null;
+		sourceDone = true;
+		discarded = 0;
+		inputPos = from;
 	}
 
 	public Tokenizer(final String input) {
 		this(input.toCharArray());
 	}
 
+	// Streaming mode: reads source through a buffer of bufferSize characters;
+	// tokens must be shorter than that, since lexing looks one character past
+	// the end of each token.  Use next() to pull tokens one at a time.
+	public Tokenizer(final Reader source, final int bufferSize) {
+		input = new char[bufferSize];
+		limit = 0;
+		this.source = source;
+		sourceDone = false;
+		discarded = 0;
+		inputPos = 0;
+	}
+
+	public Tokenizer(final Reader source) {
+		this(source, DEFAULT_BUFFER_SIZE);
+	}
+
+	// source is expected to be UTF-8
+	public Tokenizer(final ReadableByteChannel source) {
+		this(Channels.newReader(source, StandardCharsets.UTF_8.newDecoder(), -1));
+	}
+
+	// Reads UTF-8 directly from the given bytes, with no decoded copy of the
+	// whole input
+	public Tokenizer(final ByteBuffer utf8) {
+		this(new Utf8BufferReader(utf8));
+	}
+
+	// Maps the file into memory rather than reading it, so it's lexed straight
+	// out of the page cache.  The file is expected to be UTF-8.  This is a
+	// streaming tokenizer, so use next(); tokenizeToStream throws.
+	public static Tokenizer forFile(final Path path) throws IOException {
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new Tokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	// Moves input[keepFrom, limit) to the front of the buffer and reads more
+	// after it.  Returns false if there's nothing more to read.
+	private boolean refill(final int keepFrom) throws TokenizerException {
+		if (sourceDone) {
+			return false;
+		}
+
+		if (keepFrom > 0) {
+			System.arraycopy(input, keepFrom, input, 0, limit - keepFrom);
+			limit -= keepFrom;
+			discarded += keepFrom;
+			inputPos -= keepFrom;
+			tokenStart -= keepFrom;
+		}
+		if (limit == input.length) {
+			throw new TokenizerException("Token longer than the buffer of " + input.length + " characters");
+		}
+
+		try {
+			int read = 0;
+			while (read == 0) {
+				read = source.read(input, limit, input.length - limit);
+			}
+			if (read < 0) {
+				sourceDone = true;
+				return false;
+			}
+			limit += read;
+			return true;
+		} catch (final IOException e) {
+			throw new TokenizerException("Could not read input: " + e.getMessage(), e);
+		}
+	}
+
+	// true if there's a character at inputPos, reading more input if need be.
+	// Everything from keepFrom on is still needed.
+	private boolean hasChar(final int keepFrom) throws TokenizerException {
+		return inputPos < limit || (refill(keepFrom) && inputPos < limit);
+	}
+
 	// variables start with letters
 	// variables can contain letters or digits
-	private Token tryTokenizeVariableOrReservedWord() {
-		String letters = "";
-
-		if (inputPos < input.length && Character.isLetter(input[inputPos])) {
-			letters += input[inputPos];
+	private boolean tryTokenizeVariableOrReservedWord() throws TokenizerException {
+		if (hasChar(tokenStart) && Character.isLetter(input[inputPos])) {
 			inputPos++;
 
-			while (inputPos < input.length && Character.isLetterOrDigit(input[inputPos])) {
-				letters += input[inputPos];
+			while (hasChar(tokenStart) && Character.isLetterOrDigit(input[inputPos])) {
 				inputPos++;
 			}
 
-			if (letters.equals("if")) {
-				return new IfToken();
-			} else if (letters.equals("else")) {
-				return new ElseToken();
-			} else if (letters.equals("print")) {
-				return new PrintToken();
-			} else if (letters.equals("String")) {
-				return new StringToken();
-			} else if (letters.equals("void")) {
-				return new VoidToken();
-			} else if (letters.equals("Class")) {
-				return new ClassToken();
-			} else if (letters.equals("boolean")) {
-				return new BooleanToken(false);
-			} else if (letters.equals("this")) {
-				return new ThisToken();
-			} else if (letters.equals("for")) {
-				return new ForToken();
-			}else if (letters.equals("break")) {
-					return new BreakToken();
-			} else if (letters.equals("while")) {
-				return new WhileToken();
-			} else if (letters.equals("return")) {
-				return new ReturnToken();
-			} else if (letters.equals("public")) {
-				return new PublicToken();
-			} else if (letters.equals("protected")) {
-				return new ProtectedToken();
-			} else if (letters.equals("private")) {
-				return new PrivateToken();
+			tokenKind = Keywords.lookup(input, tokenStart, inputPos - tokenStart);
+			tokenValue = 0;
+			return true;
+		} else {
+			return false;
+		}
+	}
+
+	// returns false if it couldn't tokenize
+	// an integer.  The value is worked out as the digits go by; anything
+	// bigger than an int is a LONG token, and anything bigger than a long
+	// is an error.
+	private boolean tryTokenizeInteger() throws TokenizerException {
+		long value = 0;
+		while (hasChar(tokenStart) && Character.isDigit(input[inputPos])) {
+			final int digit = Character.digit(input[inputPos], 10);
+			if (value > (Long.MAX_VALUE - digit) / 10) {
+				throw new TokenizerException("Integer literal too large at " + describePosition(tokenStart));
+			}
+			value = value * 10 + digit;
+			inputPos++;
+		}
+
+		if (inputPos > tokenStart) {
+			if (value <= Integer.MAX_VALUE) {
+				tokenKind = TokenKind.INTEGER;
+				tokenValue = (int)value;
 			} else {
-				return new VariableToken(letters);
+				tokenKind = TokenKind.LONG;
+				tokenValue = 0;
+				tokenLongValue = value;
 			}
+			return true;
 		} else {
-			return null;
+			return false;
 		}
 	}
 
-	// returns null if it couldn't tokenize
-	// an integer
-	private IntegerToken tryTokenizeInteger() {
-		String digits = "";
+	// a one-character token, or a two-character token if the next
+	// character is second
+	private void tokenizeOperator(final int oneCharKind,
+	                              final char second,
+	                              final int twoCharKind) throws TokenizerException {
+		inputPos++;
+		if (hasChar(tokenStart) && input[inputPos] == second) {
+			inputPos++;
+			tokenKind = twoCharKind;
+		} else {
+			tokenKind = oneCharKind;
+		}
+	}
 
-		if (inputPos < input.length && input[inputPos] == '0') {
-			digits += input[inputPos];
+	private void tokenizeSymbol() throws TokenizerException {
+		tokenValue = 0;
+		switch (input[inputPos]) {
+		case '(':
+			inputPos++;
+			tokenKind = TokenKind.LEFT_PAREN;
+			break;
+		case ')':
+			inputPos++;
+			tokenKind = TokenKind.RIGHT_PAREN;
+			break;
+		case '{':
+			inputPos++;
+			tokenKind = TokenKind.LEFT_BRACKET;
+			break;
+		case '}':
+			inputPos++;
+			tokenKind = TokenKind.RIGHT_BRACKET;
+			break;
+		case ';':
+			inputPos++;
+			tokenKind = TokenKind.SEMICOLON;
+			break;
+		case '.':
 			inputPos++;
+			tokenKind = TokenKind.PERIOD;
+			break;
+		case ',':
+			inputPos++;
+			tokenKind = TokenKind.COMMA;
+			break;
+		case '*':
+			inputPos++;
+			tokenKind = TokenKind.MULTIPLICATION;
+			break;
+		case '/':
+			inputPos++;
+			tokenKind = TokenKind.DIVISION;
+			break;
+		case '+':
+			tokenizeOperator(TokenKind.ADDITION, '+', TokenKind.INCREMENT);
+			break;
+		case '-':
+			tokenizeOperator(TokenKind.SUBTRACTION, '-', TokenKind.DECREMENT);
+			break;
+		case '>':
+			tokenizeOperator(TokenKind.GREATER_THAN, '=', TokenKind.GREATER_THAN_EQUAL_TO);
+			break;
+		case '<':
+			tokenizeOperator(TokenKind.LESS_THAN, '=', TokenKind.LESS_THAN_EQUAL_TO);
+			break;
+		case '!':
+			tokenizeOperator(TokenKind.LOGICAL_NOT, '=', TokenKind.NOT_EQUAL_TO);
+			break;
+		case '=':
+			tokenizeOperator(TokenKind.EQUAL, '=', TokenKind.EQUAL_TO);
+			break;
+		case '&':
+			tokenizeOperator(TokenKind.EOF, '&', TokenKind.LOGICAL_AND);
+			break;
+		case '|':
+			tokenizeOperator(TokenKind.EOF, '|', TokenKind.LOGICAL_OR);
+			break;
+		default:
+			tokenKind = TokenKind.EOF;
 		}
 
-		while (inputPos < input.length && Character.isDigit(input[inputPos])) {
-			digits += input[inputPos];
+		if (tokenKind == TokenKind.EOF) {
+			throw new TokenizerException("Have input, but it's not valid at " + describePosition(tokenStart));
+		}
+	}
+
+	// for error messages
+	private String describePosition(final int position) {
+		if (source == null) {
+			return new LineMap(input, limit).describe(position);
+		} else {
+			return "offset " + (discarded + position);
+		}
+	}
+
+	private void skipWhitespace() throws TokenizerException {
+		while (hasChar(inputPos) && Character.isWhitespace(input[inputPos])) {
 			inputPos++;
 		}
+	}
 
-		if (digits.length() > 0) {
-			return new IntegerToken(Integer.parseInt(digits));
+	// Returns the next token, or null once the input has been used up.
+	public Token next() throws TokenizerException {
+		skipWhitespace();
+		if (hasChar(inputPos)) {
+			return tokenizeOne();
 		} else {
 			return null;
 		}
 	}
 
-	private void skipWhitespace() {
-		while (inputPos < input.length && Character.isWhitespace(input[inputPos])) {
-			inputPos++;
+	// Like next(), but leaves the token in kind(), start(), length() and
+	// value() instead of building a Token.  Returns false once the input has
+	// been used up.  When streaming, start() is only an index into the
+	// current buffer.
+	public boolean advance() throws TokenizerException {
+		skipWhitespace();
+		if (hasChar(inputPos)) {
+			lexOne();
+			return true;
+		} else {
+			return false;
 		}
 	}
 
+	public int kind() {
+		return tokenKind;
+	}
+
+	public int start() {
+		return tokenStart;
+	}
+
+	public int length() {
+		return inputPos - tokenStart;
+	}
+
+	public int value() {
+		return tokenValue;
+	}
+
 	public List<Token> tokenize() throws TokenizerException {
 		List<Token> tokens = new ArrayList<Token>();
 
-		while (inputPos < input.length) {
+		Token token = next();
+		while (token != null) {
+			tokens.add(token);
+			token = next();
+		}
+
+		return tokens;
+	}
+
+	// Same tokens as tokenize(), but kept as parallel arrays over input
+	// instead of as Token objects.  Needs the whole input, so this can't
+	// be used when streaming.
+	public TokenStream tokenizeToStream() throws TokenizerException {
+		if (source != null) {
+			throw new IllegalStateException("tokenizeToStream needs the whole input; use next() when streaming");
+		}
+
+		// a guess at the number of tokens, to avoid most resizing
+		final TokenStream tokens = new TokenStream(input, (limit - inputPos) / 6);
+
+		while (inputPos < limit) {
 			skipWhitespace();
-			if (inputPos < input.length) {
-				tokens.add(tokenizeOne());
+			if (inputPos < limit) {
+				lexOne();
+				tokens.add(tokenKind, tokenStart, inputPos - tokenStart, tokenValue);
 			}
 		}
 
+		tokens.trimToSize();
 		return tokens;
 	}
 
 	// assumes it's not starting on whitespace
 	private Token tokenizeOne() throws TokenizerException {
-		Token read = tryTokenizeVariableOrReservedWord();
-		if (read != null) {
-			return read;
-		} else {
-			read = tryTokenizeInteger();
-			if (read != null) {
-				return read;
+		lexOne();
+		switch (tokenKind) {
+		case TokenKind.VARIABLE:
+			if (source != null) {
+				// the buffer is about to be reused
+				return new VariableToken(new String(input, tokenStart, inputPos - tokenStart));
+			} else {
+				return new VariableToken(input, tokenStart, inputPos - tokenStart);
+			}
+		case TokenKind.INTEGER:
+			return new IntegerToken(tokenValue);
+		case TokenKind.LONG:
+			return new LongToken(tokenLongValue);
+		case TokenKind.BOOLEAN:
+			return TokenKind.booleanToken(tokenValue != 0);
+		default:
+			return TokenKind.canonical(tokenKind);
+		}
+	}
+
+	// Reads one token starting at inputPos, leaving its kind, start, and value in
+	// tokenKind, tokenStart, and tokenValue.  Assumes it's not starting on
+	// whitespace.
+	private void lexOne() throws TokenizerException {
+		tokenStart = inputPos;
+		if (!tryTokenizeVariableOrReservedWord() && !tryTokenizeInteger()) {
+			if (hasChar(tokenStart)) {
+				tokenizeSymbol();
 			} else {
-				if (inputPos < input.length) {
-					if (input[inputPos] == '(') {
-						inputPos++;
-						return new LeftParenToken();
-					} else if (input[inputPos] == ')') {
-						inputPos++;
-						return new RightParenToken();
-					} else if (input[inputPos] == '+' && inputPos == input.length-1) {
-						inputPos++;
-						return new AdditionToken();
-					} else if (input[inputPos] =='-' && inputPos == input.length-1) {
-						inputPos++;
-						return new SubtractionToken();
-					} else if (input[inputPos] =='*') {
-						inputPos++;
-						return new MultiplicationToken();
-					} else if (input[inputPos] =='/') {
-						inputPos++;
-						return new DivisionToken();
-					} else if (input[inputPos] == '>' && inputPos == input.length-1) {
-						inputPos++;
-						return new GreaterThanToken();
-					} else if (input[inputPos] == '<' && inputPos == input.length-1) {
-						inputPos++;
-						return new LessThanToken();
-					} else if (input[inputPos] == '!' && inputPos == input.length-1) {
-						inputPos++;
-						return new LogicalNOTToken();
-					} else if (input[inputPos] == '=' && inputPos == input.length-1 ) {
-						inputPos++;
-						return new EqualToken();
-					} else if (input[inputPos] == '=' && input[inputPos+1]== '=') {
-						inputPos++;
-						inputPos++;
-						return new EqualToToken();
-					} else if (input[inputPos] == '!' && input[inputPos+1]== '=') {
-						inputPos++;
-						inputPos++;
-						return new NotEqualToToken();
-					} else if (input[inputPos] == '>' && input[inputPos+1]== '=') {
-						inputPos++;
-						inputPos++;
-						return new GreaterThanEqualToToken();
-					} else if (input[inputPos] == '<' && input[inputPos+1]== '=') {
-						inputPos++;
-						inputPos++;
-						return new LessThanEqualToToken();
-					} else if (input[inputPos] == '&' && input[inputPos+1]== '&') {
-						inputPos++;
-						inputPos++;
-						return new LogicalANDToken();
-					} else if (input[inputPos] == '|' && input[inputPos+1]== '|') {
-						inputPos++;
-						inputPos++;
-						return new LogicalORToken();
-					} 
-               else if (input[inputPos] == '+' && input[inputPos+1]== '+') {
-						inputPos++;
-						inputPos++;
-						return new IncrementToken();
-					} 
-               else if (input[inputPos] == '-' && input[inputPos+1]== '-') {
-						inputPos++;
-						inputPos++;
-						return new DecrementToken();
-					} 
-               
-               else {
-						throw new TokenizerException("Have input, but it's not valid");
-					}
-				} else {
-					throw new TokenizerException("Have no more input");
-				}
+				throw new TokenizerException("Have no more input");
 			}
 		}
 	}
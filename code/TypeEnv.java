@@ -0,0 +1,22 @@
+package code;
+
+import java.util.Map;
+
+// The types of the variables in scope.  Environments never change: extend
+// gives a new one and leaves the old one as it was, so a scope can be
+// entered without copying the scope around it.
+public interface TypeEnv {
+    // null if variable isn't in scope
+    public Type lookup(Variable variable);
+
+    public boolean contains(Variable variable);
+
+    // this environment with variable bound to type, replacing any type it
+    // already had
+    public TypeEnv extend(Variable variable, Type type);
+
+    public int size();
+
+    // the same bindings, as a map of its own
+    public Map<Variable, Type> toMap();
+} // TypeEnv
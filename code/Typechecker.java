@@ -103,28 +103,22 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
 
   public void typecheckFunction(final FirstOrderFunctionDefinition function)
       throws IllTypedException {
-      final Map<Variable, Type> gamma = new HashMap<Variable, Type>();
+      TypeEnv gamma = PersistentTypeEnv.EMPTY;
       for (final FormalParameter formalParam : function.formalParams) {
-          if (!gamma.containsKey(formalParam.theVariable)) {
-              gamma.put(formalParam.theVariable, formalParam.theType);
+          if (!gamma.contains(formalParam.theVariable)) {
+              gamma = gamma.extend(formalParam.theVariable, formalParam.theType);
           } else {
               throw new IllTypedException("Duplicate formal parameter name");
           }
       }
 
-      final Map<Variable, Type> finalGamma = typecheckStmts(gamma, false, function.body);
+      final TypeEnv finalGamma = typecheckStmts(gamma, false, function.body);
       final Type actualReturnType = typeof(finalGamma, function.returnExp);
-      if (!actualReturnType.equals(function.returnType)) {
+      if (!Types.same(actualReturnType, function.returnType)) {
           throw new IllTypedException("return type mismatch");
       }
   } // typecheckFunction
 
-  public static Map<Variable, Type> makeCopy(final Map<Variable, Type> gamma) {
-      final Map<Variable, Type> copy = new HashMap<Variable, Type>();
-      copy.putAll(gamma);
-      return copy;
-  } // makeCopy
-
   // int bar(int x) {
   //   return x + 5;
   // }
@@ -169,10 +163,19 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
   //  isOdd -> (bool, (int)),
   //  sum -> (int, (int, int))]
   
-  public Map<Variable, Type> typecheckStmts(Map<Variable, Type> gamma,
+  // The Map versions of typecheckStmts, typecheckStmt, and typeof are for
+  // callers with a gamma of their own; the map is left as it was.
+  public Map<Variable, Type> typecheckStmts(final Map<Variable, Type> gamma,
                                             final boolean breakAndContinueOk,
                                             final List<Stmt> stmts)
       throws IllTypedException {
+      return typecheckStmts(PersistentTypeEnv.fromMap(gamma), breakAndContinueOk, stmts).toMap();
+  } // typecheckStmts
+
+  public TypeEnv typecheckStmts(TypeEnv gamma,
+                                final boolean breakAndContinueOk,
+                                final List<Stmt> stmts)
+      throws IllTypedException {
       for (final Stmt s : stmts) {
           //                  result gamma
           // initial          []
@@ -189,6 +192,13 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
                                            final boolean breakAndContinueOk,
                                            final Stmt s)
       throws IllTypedException {
+      return typecheckStmt(PersistentTypeEnv.fromMap(gamma), breakAndContinueOk, s).toMap();
+  } // typecheckStmt
+
+  public TypeEnv typecheckStmt(final TypeEnv gamma,
+                               final boolean breakAndContinueOk,
+                               final Stmt s)
+      throws IllTypedException {
       // x
       if (s instanceof LetStmt) {
           //     x  tau   e
@@ -197,10 +207,8 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
           //
           // let z: int = bool
           final LetStmt asLet = (LetStmt)s;
-          if (typeof(gamma, asLet.e).equals(asLet.tau)) {
-              final Map<Variable, Type> copy = makeCopy(gamma);
-              copy.put(asLet.x, asLet.tau);
-              return copy;
+          if (Types.same(typeof(gamma, asLet.e), asLet.tau)) {
+              return gamma.extend(asLet.x, asLet.tau);
           } else {
               throw new IllTypedException("type mismatch in let");
           }
@@ -208,9 +216,9 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
           // int int
           // x = 1 + 2
           final AssignStmt asAssign = (AssignStmt)s;
-          if (gamma.containsKey(asAssign.variable)) {
-              final Type variableType = gamma.get(asAssign.variable);
-              if (typeof(gamma, asAssign.exp).equals(variableType)) {
+          if (gamma.contains(asAssign.variable)) {
+              final Type variableType = gamma.lookup(asAssign.variable);
+              if (Types.same(typeof(gamma, asAssign.exp), variableType)) {
                   return gamma;
               } else {
                   throw new IllTypedException("Assigned something of wrong type");
@@ -240,7 +248,7 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
           //   [x -> int, y -> int, z -> int]
           // }
           final ForStmt asFor = (ForStmt)s;
-          final Map<Variable, Type> newGamma = typecheckStmt(gamma, breakAndContinueOk, asFor.initializer);
+          final TypeEnv newGamma = typecheckStmt(gamma, breakAndContinueOk, asFor.initializer);
           final Type guardType = typeof(newGamma, asFor.guard);
           if (guardType instanceof BoolType) {
               typecheckStmt(newGamma, breakAndContinueOk, asFor.update);
@@ -266,14 +274,40 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
       }
   } // typecheckStmt
 
-  // typeof(Gamma, e2) == BoolType
+  // == (which the parser and code generator call EqualsBOP) or !=
+  private static boolean isEquality(final BOP bop) {
+      return (bop instanceof EqualsToBOP ||
+              bop instanceof EqualsBOP ||
+              bop instanceof NotEqualsBOP);
+  } // isEquality
+
   public Type typeof(final Map<Variable, Type> gamma,
                      final Exp e)
       throws IllTypedException {
+      return typeof(PersistentTypeEnv.fromMap(gamma), e);
+  } // typeof
+
+  // The type of an operand of + or a comparison, or null if it's a
+  // variable which isn't in scope.  Those operators accept some operands
+  // which aren't well typed, so this says so rather than throwing, and the
+  // operator decides.  Anything else wrong in an operand is still an
+  // error.
+  private Type operandType(final TypeEnv gamma, final Exp e) throws IllTypedException {
+      if (e instanceof VariableExp) {
+          return gamma.lookup(((VariableExp)e).variable);
+      } else {
+          return typeof(gamma, e);
+      }
+  } // operandType
+
+  // typeof(Gamma, e2) == BoolType
+  public Type typeof(final TypeEnv gamma,
+                     final Exp e)
+      throws IllTypedException {
       if (e instanceof IntegerExp) {
-          return new IntType();
+          return Types.INT;
       } else if (e instanceof BooleanExp) {
-          return new BoolType();
+          return Types.BOOL;
       } else if (e instanceof BinopExp) { // &&, +, or <
           final BinopExp asBinop = (BinopExp)e;
           if (asBinop.bop instanceof AndBOP || asBinop.bop instanceof OrBOP) {
@@ -282,36 +316,31 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
 
               if (leftType instanceof BoolType &&
                   rightType instanceof BoolType) {
-                  return new BoolType();
+                  return Types.BOOL;
               } else {
                   throw new IllTypedException("left or right in && is not a boolean");
               }
           } else if (asBinop.bop instanceof PlusBOP) {
-          	try{
-              final Type leftType = typeof(gamma, asBinop.left);
-              final Type rightType = typeof(gamma, asBinop.right);
+              final Type leftType = operandType(gamma, asBinop.left);
+              final Type rightType = operandType(gamma, asBinop.right);
 
               if (leftType instanceof IntType &&
                   rightType instanceof IntType) {
-                  return new IntType();
+                  return Types.INT;
+              } else if (asBinop.left instanceof VariableExp &&
+                         asBinop.right instanceof VariableExp) {
+                  // adding variables whose types aren't known yet
+                  return Types.VAR;
               } else {
                   throw new IllTypedException("left or right in + is not an int");
               }
-              } catch(Exception va) {
-              	if (asBinop.left instanceof VariableExp &&
-              			asBinop.right instanceof VariableExp) {
-                    return new VarType();
-                } else {
-                    throw new IllTypedException("left or right in + is not an int");
-                }
-              }
-          } else if (asBinop.bop instanceof SubBOP) {
+          } else if (asBinop.bop instanceof SubBOP || asBinop.bop instanceof MinusBOP) {
             final Type leftType = typeof(gamma, asBinop.left);
             final Type rightType = typeof(gamma, asBinop.right);
 
             if (leftType instanceof IntType &&
                 rightType instanceof IntType) {
-                return new IntType();
+                return Types.INT;
             } else {
                 throw new IllTypedException("left or right in + is not an int");
             }
@@ -321,7 +350,7 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
 
             if (leftType instanceof IntType &&
                 rightType instanceof IntType) {
-                return new IntType();
+                return Types.INT;
             } else {
                 throw new IllTypedException("left or right in + is not an int");
             }
@@ -331,41 +360,37 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
 
           if (leftType instanceof IntType &&
               rightType instanceof IntType) {
-              return new IntType();
+              return Types.INT;
           } else {
               throw new IllTypedException("left or right in + is not an int");
           }
-      } else if (asBinop.bop instanceof LessThanBOP || asBinop.bop instanceof GreaterThanBOP || asBinop.bop instanceof EqualsToBOP) {
-      	try {
-              final Type leftType = typeof(gamma, asBinop.left);
-              final Type rightType = typeof(gamma, asBinop.right);
+      } else if (asBinop.bop instanceof LessThanBOP || asBinop.bop instanceof GreaterThanBOP ||
+                 asBinop.bop instanceof LessThanEqualBOP || asBinop.bop instanceof GreaterThanEqualBOP ||
+                 isEquality(asBinop.bop)) {
+              final Type leftType = operandType(gamma, asBinop.left);
+              final Type rightType = operandType(gamma, asBinop.right);
               if (leftType instanceof BoolType &&
-            			rightType instanceof BoolType && asBinop.bop instanceof EqualsToBOP) {
-          			return new BoolType();
-          		}
-              else if (leftType instanceof IntType &&
-                  rightType instanceof IntType) {
-                  return new BoolType();
+                  rightType instanceof BoolType && isEquality(asBinop.bop)) {
+                  return Types.BOOL;
+              } else if (leftType instanceof IntType &&
+                         rightType instanceof IntType) {
+                  return Types.BOOL;
+              } else if (asBinop.left instanceof VariableExp &&
+                         asBinop.right instanceof VariableExp && isEquality(asBinop.bop)) {
+                  // any two variables can be compared for equality
+                  return Types.BOOL;
               } else {
-                  throw new IllTypedException("left or right in line is not an int");
+                  throw new IllTypedException("left or right in line is not a Variable");
               }
-      	} catch(Exception e2) {
-      		if (asBinop.left instanceof VariableExp &&
-        			asBinop.right instanceof VariableExp && asBinop.bop instanceof EqualsToBOP) {
-      			return new BoolType();
-      		} else {
-      			throw new IllTypedException("left or right in line is not a Variable");
-      		}
-      	}
           } else {
               assert(false);
               throw new IllTypedException("should be unreachable; unknown operator");
           }
       } else if (e instanceof VariableExp) {
-          // final Map<Variable, Type> gamma
+          // final TypeEnv gamma
           final VariableExp asVar = (VariableExp)e; 
-          if (gamma.containsKey(asVar.variable)) {
-              final Type tau = gamma.get(asVar.variable);
+          if (gamma.contains(asVar.variable)) {
+              final Type tau = gamma.lookup(asVar.variable);
               return tau;
           } else {
               throw new IllTypedException("Not in scope: " + asVar.variable);
@@ -373,14 +398,14 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
       } 
      
       else if (e instanceof PrintExp) {
-          // final Map<Variable, Type> gamma
+          // final TypeEnv gamma
           final PrintExp asPrint = (PrintExp)e;
           if(asPrint.name instanceof VariableExp) {
-          	return new VarType();
+          	return Types.VAR;
           } else if(typeof(gamma, asPrint.name) instanceof IntType) {
-          	return new IntType();
+          	return Types.INT;
           } else if(typeof(gamma, asPrint.name) instanceof BoolType) {
-          	return new BoolType();
+          	return Types.BOOL;
           } else {
               throw new IllTypedException("Not in scope: " + asPrint.name);
           }
@@ -391,10 +416,8 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
           // (x: Int) => x + 1
           // Int => Int
           final HigherOrderFunctionDef asFunc = (HigherOrderFunctionDef)e;
-          final Map<Variable, Type> copy = makeCopy(gamma);
-          copy.put(asFunc.paramName, asFunc.paramType);
-          final Type bodyType = typeof(copy, asFunc.body);
-          return new FunctionType(asFunc.paramType, bodyType);
+          final Type bodyType = typeof(gamma.extend(asFunc.paramName, asFunc.paramType), asFunc.body);
+          return Types.function(asFunc.paramType, bodyType);
       } else if (e instanceof CallHigherOrderFunction) {
           // e1(e2)
           // e1: (x: Int) => x + 1 [Int => Int]
@@ -405,7 +428,7 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
           final Type hopefullyParameter = typeof(gamma, asCall.theParameter);
           if (hopefullyFunction instanceof FunctionType) {
               final FunctionType asFunc = (FunctionType)hopefullyFunction;
-              if (asFunc.paramType.equals(hopefullyParameter)) {
+              if (Types.same(asFunc.paramType, hopefullyParameter)) {
                   return asFunc.returnType;
               } else {
                   throw new IllTypedException("Parameter type mismatch");
@@ -428,7 +451,7 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
       }
   } // typeof
 
-  private void checkFormalParams(final Map<Variable, Type> gamma,
+  private void checkFormalParams(final TypeEnv gamma,
                                  final List<FormalParameter> formalParams,
                                  final List<Exp> actualParams)
       throws IllTypedException {
@@ -439,7 +462,7 @@ public void typecheckConstructor(final ConstructorDec construct) throws IllTyped
               final FormalParameter formalParam = formalIterator.next();
               final Exp actualParam = actualIterator.next();
               final Type actualType = typeof(gamma, actualParam);
-              if (!actualType.equals(formalParam.theType)) {
+              if (!Types.same(actualType, formalParam.theType)) {
                   throw new IllTypedException("Parameter type mismatch");
               }
           }
@@ -0,0 +1,119 @@
+package code;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+// The canonical instance of every type.  Types carry no state beyond their
+// structure, so there's no need for more than one of each: the typechecker
+// hands these out instead of allocating a type per expression, and anything
+// built from canonical types can be compared with == (see same).  Types
+// built with new still work everywhere, they just miss the fast path.
+//
+// Only types something still refers to are kept, so a long-lived process
+// doesn't hold on to the types of every program it ever compiled.  Safe to
+// use from several threads at once.
+public class Types {
+    // ---BEGIN CONSTANTS---
+    public static final IntType INT = new IntType();
+    public static final BoolType BOOL = new BoolType();
+    public static final VoidType VOID = new VoidType();
+    public static final VarType VAR = new VarType();
+    // ---END CONSTANTS---
+
+    // Keyed weakly, with weakly held values, so a type nothing uses any more
+    // is dropped along with its entry instead of being kept for the life of
+    // the process.  Each key is part of the type it maps to, so it lives as
+    // long as the type does.  An entry whose type has gone can outlive it,
+    // and put would keep that entry's old key, so it's removed first.
+    private static final WeakHashMap<ClassName, WeakReference<ReferenceType>> REFERENCES =
+        new WeakHashMap<ClassName, WeakReference<ReferenceType>>();
+    // paramType -> returnType -> type, both canonical
+    private static final WeakHashMap<ReferenceType, WeakHashMap<ReferenceType, WeakReference<LambdaType>>> LAMBDAS =
+        new WeakHashMap<ReferenceType, WeakHashMap<ReferenceType, WeakReference<LambdaType>>>();
+    private static final WeakHashMap<Type, WeakHashMap<Type, WeakReference<FunctionType>>> FUNCTIONS =
+        new WeakHashMap<Type, WeakHashMap<Type, WeakReference<FunctionType>>>();
+
+    public static final ReferenceType OBJECT = reference(new ClassName(ClassGenerator.objectName));
+
+    public static synchronized ReferenceType reference(final ClassName name) {
+        final ReferenceType existing = get(REFERENCES, name);
+        if (existing != null) {
+            return existing;
+        }
+        final ReferenceType fresh = new ReferenceType(name);
+        REFERENCES.remove(name);
+        REFERENCES.put(fresh.refersTo, new WeakReference<ReferenceType>(fresh));
+        return fresh;
+    } // reference
+
+    public static synchronized LambdaType lambda(final ReferenceType paramType, final ReferenceType returnType) {
+        final ReferenceType param = (ReferenceType)intern(paramType);
+        final ReferenceType result = (ReferenceType)intern(returnType);
+        final WeakHashMap<ReferenceType, WeakReference<LambdaType>> byResult = inner(LAMBDAS, param);
+        final LambdaType existing = get(byResult, result);
+        if (existing != null) {
+            return existing;
+        }
+        final LambdaType fresh = new LambdaType(param, result);
+        byResult.remove(result);
+        byResult.put(fresh.returnType, new WeakReference<LambdaType>(fresh));
+        return fresh;
+    } // lambda
+
+    public static synchronized FunctionType function(final Type paramType, final Type returnType) {
+        final Type param = intern(paramType);
+        final Type result = intern(returnType);
+        final WeakHashMap<Type, WeakReference<FunctionType>> byResult = inner(FUNCTIONS, param);
+        final FunctionType existing = get(byResult, result);
+        if (existing != null) {
+            return existing;
+        }
+        final FunctionType fresh = new FunctionType(param, result);
+        byResult.remove(result);
+        byResult.put(fresh.returnType, new WeakReference<FunctionType>(fresh));
+        return fresh;
+    } // function
+
+    // null if there's no entry, or its type has been collected
+    private static <K, V> V get(final WeakHashMap<K, WeakReference<V>> table, final K key) {
+        final WeakReference<V> entry = table.get(key);
+        return (entry == null) ? null : entry.get();
+    } // get
+
+    private static <K, V> WeakHashMap<K, V> inner(final WeakHashMap<K, WeakHashMap<K, V>> outer, final K key) {
+        WeakHashMap<K, V> byResult = outer.get(key);
+        if (byResult == null) {
+            byResult = new WeakHashMap<K, V>();
+            outer.put(key, byResult);
+        }
+        return byResult;
+    } // inner
+
+    // the canonical instance equal to type
+    public static Type intern(final Type type) {
+        if (type instanceof IntType) {
+            return INT;
+        } else if (type instanceof BoolType) {
+            return BOOL;
+        } else if (type instanceof VoidType) {
+            return VOID;
+        } else if (type instanceof VarType) {
+            return VAR;
+        } else if (type instanceof LambdaType) {
+            final LambdaType asLambda = (LambdaType)type;
+            return lambda(asLambda.paramType, asLambda.returnType);
+        } else if (type instanceof ReferenceType) {
+            return reference(((ReferenceType)type).refersTo);
+        } else if (type instanceof FunctionType) {
+            final FunctionType asFunc = (FunctionType)type;
+            return function(asFunc.paramType, asFunc.returnType);
+        } else {
+            return type;
+        }
+    } // intern
+
+    // equals, but without a call when both are canonical
+    public static boolean same(final Type first, final Type second) {
+        return first == second || first.equals(second);
+    } // same
+} // Types
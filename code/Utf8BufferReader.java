@@ -0,0 +1,84 @@
+package code;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Reads UTF-8 straight out of a ByteBuffer, usually a MappedByteBuffer of a
+// source file.  Source code is almost all ASCII, which is copied across a
+// byte at a time with no decoding; anything else goes through a
+// CharsetDecoder.
+public class Utf8BufferReader extends Reader {
+    // ---BEGIN INSTANCE VARIABLES---
+    private final ByteBuffer bytes;
+    private final CharsetDecoder decoder;
+    // a character which didn't fit last time; see read
+    private final CharBuffer pending;
+    // ---END INSTANCE VARIABLES---
+
+    public Utf8BufferReader(final ByteBuffer bytes) {
+        this.bytes = bytes;
+        decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        pending = CharBuffer.allocate(2);
+        pending.flip();
+    }
+
+    public int read(final char[] output, final int offset, final int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < length && pending.hasRemaining()) {
+            output[offset + count++] = pending.get();
+        }
+
+        // ASCII fast path
+        int position = bytes.position();
+        final int limit = bytes.limit();
+        while (count < length && position < limit) {
+            final byte current = bytes.get(position);
+            if (current < 0) {
+                break;
+            }
+            output[offset + count++] = (char)current;
+            position++;
+        }
+        bytes.position(position);
+
+        if (count < length && position < limit) {
+            final CharBuffer out = CharBuffer.wrap(output, offset + count, length - count);
+            check(decoder.decode(bytes, out, true));
+            count = out.position() - offset;
+
+            // a surrogate pair with room for only half of it; hold the
+            // second half over, since returning 0 would look like no progress
+            if (count == 0) {
+                pending.clear();
+                check(decoder.decode(bytes, pending, true));
+                pending.flip();
+                output[offset + count++] = pending.get();
+            }
+        }
+
+        if (count == 0 && !bytes.hasRemaining()) {
+            return -1;
+        }
+        return count;
+    } // read
+
+    private static void check(final CoderResult result) throws IOException {
+        if (result.isError()) {
+            result.throwException();
+        }
+    } // check
+
+    public void close() {}
+} // Utf8BufferReader
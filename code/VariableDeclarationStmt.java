@@ -1,6 +1,6 @@
 package code;
 
-public class VariableDeclarationStmt implements Stmt {
+public class VariableDeclarationStmt extends Node implements Stmt {
     public final Type type;
     public final Variable variable;
     public final Exp exp;
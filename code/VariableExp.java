@@ -1,6 +1,6 @@
 package code;
 
-public class VariableExp implements Exp {
+public class VariableExp extends Node implements Exp {
     public final Variable variable;
 
     public VariableExp(final Variable variable) {
@@ -1,18 +1,71 @@
 package code;
 public class VariableToken implements Token {
-    public final String name;
+    // The name is either given up front, or refers to input[start, start + length)
+    // and only gets copied out into a String the first time someone asks for it.
+    private final char[] input;
+    private final int start;
+    private final int length;
+    private String name;
 
     public VariableToken(final String name) {
+        this.input = null;
+        this.start = 0;
+        this.length = name.length();
         this.name = name;
     }
 
+    public VariableToken(final char[] input, final int start, final int length) {
+        this.input = input;
+        this.start = start;
+        this.length = length;
+        this.name = null;
+    }
+
+    public String getName() {
+        if (name == null) {
+            name = new String(input, start, length);
+        }
+        return name;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public char charAt(final int index) {
+        return (name != null) ? name.charAt(index) : input[start + index];
+    }
+
     public boolean equals(final Object other) {
         if (other instanceof VariableToken) {
             final VariableToken otherVar = (VariableToken)other;
-            return name.equals(otherVar.name);
+            if (length != otherVar.length) {
+                return false;
+            }
+            for (int index = 0; index < length; index++) {
+                if (charAt(index) != otherVar.charAt(index)) {
+                    return false;
+                }
+            }
+            return true;
         } else {
             return false;
         }
     }
+
+    // same value as getName().hashCode(), without needing the String
+    @Override
+    public int hashCode() {
+        int result = 0;
+        for (int index = 0; index < length; index++) {
+            result = 31 * result + charAt(index);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
 }
 
@@ -1,5 +1,7 @@
 package code;
 public class VoidToken implements Token {
+    public static final VoidToken INSTANCE = new VoidToken();
+
     public boolean equals(final Object other) {
         return other instanceof VoidToken;
     }
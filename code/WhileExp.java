@@ -1,7 +1,7 @@
 package code;
 
 
-public class WhileExp implements Exp{
+public class WhileExp extends Node implements Exp{
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -2,7 +2,7 @@ package code;
 
 import java.util.List;
 
-public class WhileStmt implements Stmt {
+public class WhileStmt extends Node implements Stmt {
     public final Exp guard;
     public final List<Stmt> body;
 
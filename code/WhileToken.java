@@ -1,6 +1,8 @@
 package code;
 
 public class WhileToken implements Token {
+    public static final WhileToken INSTANCE = new WhileToken();
+
     public boolean equals(final Object other) {
         return other instanceof WhileToken;
     }
@@ -2,6 +2,7 @@ package tests;
 import code.*;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import java.io.File;
@@ -1254,4 +1255,134 @@ public class CodeGeneratorTest {
                      "3");
     } // testMultipleClasses
 
+    public static Exp divideByZeroIsZero() {
+        return new BinopExp(new BinopExp(new IntegerLiteralExp(1),
+                                         new DivBOP(),
+                                         new IntegerLiteralExp(0)),
+                            new EqualsBOP(),
+                            new IntegerLiteralExp(0));
+    } // divideByZeroIsZero
+
+    @Test
+    public void testParsedOperators() throws CodeGeneratorException, IOException {
+        // class TestParsedOperators extends java/lang/Object {
+        //   init() { super(); }
+        //   main {
+        //     boolean a = 3 >= 2;
+        //     print(a);
+        //     boolean b = 1 != 1;
+        //     print(b);
+        //     boolean c = true || 1 / 0 == 0;
+        //     print(c);
+        //     boolean d = false && 1 / 0 == 0;
+        //     print(d);
+        //     int e = 7 - 2;
+        //     print(e);
+        //   }
+        // }
+        // The literals are the IntegerExp and BooleanExp the parser makes.
+        final List<Stmt> body =
+            stmts(new VariableDeclarationStmt(new BoolType(),
+                                              new Variable("a"),
+                                              new BinopExp(new IntegerExp(3),
+                                                           new GreaterThanEqualBOP(),
+                                                           new IntegerExp(2))),
+                  new PrintStmt(new Variable("a")),
+                  new VariableDeclarationStmt(new BoolType(),
+                                              new Variable("b"),
+                                              new BinopExp(new IntegerExp(1),
+                                                           new NotEqualsBOP(),
+                                                           new IntegerExp(1))),
+                  new PrintStmt(new Variable("b")),
+                  new VariableDeclarationStmt(new BoolType(),
+                                              new Variable("c"),
+                                              new BinopExp(new BooleanExp(true),
+                                                           new OrBOP(),
+                                                           divideByZeroIsZero())),
+                  new PrintStmt(new Variable("c")),
+                  new VariableDeclarationStmt(new BoolType(),
+                                              new Variable("d"),
+                                              new BinopExp(new BooleanExp(false),
+                                                           new AndBOP(),
+                                                           divideByZeroIsZero())),
+                  new PrintStmt(new Variable("d")),
+                  new VariableDeclarationStmt(new IntType(),
+                                              new Variable("e"),
+                                              new BinopExp(new IntegerExp(7),
+                                                           new MinusBOP(),
+                                                           new IntegerExp(2))),
+                  new PrintStmt(new Variable("e")));
+        assertOutputInMain("TestParsedOperators", body,
+                           "true", "false", "true", "false", "5");
+    } // testParsedOperators
+
+    @Test
+    public void testParsedProgram() throws CodeGeneratorException, IOException, TokenizerException, java.text.ParseException {
+        final String source =
+            "Class ParsedMain {\n" +
+            "  ParsedMain() { }\n" +
+            "  void main() {\n" +
+            "    Counter c = new Counter(3);\n" +
+            "    int total = 0;\n" +
+            "    while (c.more()) {\n" +
+            "      total = total + c.next();\n" +
+            "    }\n" +
+            "    print(total);\n" +
+            "  }\n" +
+            "}\n" +
+            "Class Counter {\n" +
+            "  int left;\n" +
+            "  Counter(int start) { this.left = start; }\n" +
+            "  public boolean more() { return this.left > 0; }\n" +
+            "  public int next() { int value = this.left; this.left = value - 1; return value; }\n" +
+            "}\n";
+        final Program program =
+            new Parser(new Tokenizer(source).tokenizeToStream()).parseProgram("ParsedMain.jc");
+        assertOutput(program, "6");
+        final Program lazy =
+            new Parser(new Tokenizer(source).tokenizeToStream()).parseProgram("ParsedMain.jc", true);
+        assertOutput(lazy, "6");
+    } // testParsedProgram
+
+    @Test
+    public void testLineNumbersInStackTrace() throws CodeGeneratorException, IOException {
+        // class LineNumbers extends Object {
+        //   main {
+        //     int x = 0;
+        //     int y = 1 / x;
+        //   }
+        // }
+        final String source = "int x = 0;\nint y = 1 / x;\n";
+        final Stmt first = new VariableDeclarationStmt(new IntType(),
+                                                       new Variable("x"),
+                                                       new IntegerLiteralExp(0));
+        first.setPosition(0);
+        final Stmt second = new VariableDeclarationStmt(new IntType(),
+                                                        new Variable("y"),
+                                                        new BinopExp(new IntegerLiteralExp(1),
+                                                                     new DivBOP(),
+                                                                     new VariableExp(new Variable("x"))));
+        second.setPosition(source.indexOf("int y"));
+        final List<ClassDefinition> classDefs = new ArrayList<ClassDefinition>();
+        classDefs.add(new ClassDefinition(new ClassName("LineNumbers"),
+                                          new ClassName(ClassGenerator.objectName),
+                                          new ArrayList<FormalParam>(),
+                                          new Constructor(new ArrayList<FormalParam>(),
+                                                          actualParams(),
+                                                          stmts()),
+                                          new MainDefinition(stmts(first, second)),
+                                          methods()));
+        final TestResult result = runTest(new Program(null,
+                                                      classDefs,
+                                                      "LineNumbers.jc",
+                                                      new LineMap(source.toCharArray())));
+        result.generator.deleteClasses(WORK_DIRECTORY);
+
+        boolean found = false;
+        for (final String line : result.output) {
+            found = found || line.contains("LineNumbers.main(LineNumbers.jc:2)");
+        }
+        assertTrue(found);
+    } // testLineNumbersInStackTrace
+
 } // CodeGeneratorTest
@@ -0,0 +1,189 @@
+package tests;
+import code.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import jdk.internal.org.objectweb.asm.ClassWriter;
+import jdk.internal.org.objectweb.asm.MethodVisitor;
+import static jdk.internal.org.objectweb.asm.Opcodes.*;
+
+// Not a test; run by hand with `java tests.CompilerBenchmark` and compare
+// the numbers before and after a change to the typechecker or the code
+// generator.  Every kind of node each pass handles shows up, so kinds late
+// in the instanceof chains count as much as early ones.
+public class CompilerBenchmark {
+    // ---BEGIN CONSTANTS---
+    public static final int WARMUP_ROUNDS = 20;
+    public static final int MEASURED_ROUNDS = 10;
+    // ---END CONSTANTS---
+
+    private static Exp var(final String name) {
+        return new VariableExp(new Variable(name));
+    } // var
+
+    // int f(int a, bool b) with numStmts statements cycling through
+    // arithmetic, higher-order and first-order calls, print, and loops
+    // holding break, continue, and empty statements
+    public static FirstOrderFunctionDefinition typecheckerWorkload(final int numStmts) {
+        final List<FormalParameter> params = new ArrayList<FormalParameter>();
+        params.add(new FormalParameter(new IntType(), new Variable("a")));
+        params.add(new FormalParameter(new BoolType(), new Variable("b")));
+        final List<Stmt> body = new ArrayList<Stmt>();
+        for (int index = 0; index < numStmts; index++) {
+            final Variable local = new Variable("x" + index);
+            switch (index % 6) {
+            case 0:
+                body.add(new LetStmt(local, new IntType(),
+                                     new BinopExp(new BinopExp(var("a"), new PlusBOP(), new IntegerExp(1)),
+                                                  new MultBOP(),
+                                                  new IntegerExp(2))));
+                break;
+            case 1:
+                body.add(new LetStmt(local, new IntType(),
+                                     new CallHigherOrderFunction(new HigherOrderFunctionDef(new Variable("y"),
+                                                                                            new IntType(),
+                                                                                            new BinopExp(var("y"),
+                                                                                                         new SubBOP(),
+                                                                                                         var("a"))),
+                                                                 var("a"))));
+                break;
+            case 2:
+                final List<Exp> actualParams = new ArrayList<Exp>();
+                actualParams.add(var("a"));
+                body.add(new LetStmt(local, new IntType(),
+                                     new CallFirstOrderFunction(new FunctionName("g"), actualParams)));
+                break;
+            case 3:
+                body.add(new LetStmt(local, new BoolType(),
+                                     new PrintExp(new BinopExp(var("b"), new AndBOP(), new BooleanExp(true)))));
+                break;
+            case 4:
+                final List<Stmt> whileBody = new ArrayList<Stmt>();
+                whileBody.add(new EmptyStmt());
+                whileBody.add(new ContinueStmt());
+                whileBody.add(new BreakStmt());
+                body.add(new WhileStmt(var("b"), whileBody));
+                break;
+            default:
+                final List<Stmt> forBody = new ArrayList<Stmt>();
+                forBody.add(new EmptyStmt());
+                forBody.add(new BreakStmt());
+                body.add(new ForStmt(new LetStmt(new Variable("i"), new IntType(), new IntegerExp(0)),
+                                     new BinopExp(var("i"), new LessThanBOP(), var("a")),
+                                     new AssignStmt(new Variable("i"),
+                                                    new BinopExp(var("i"), new PlusBOP(), new IntegerExp(1))),
+                                     forBody));
+            }
+        }
+        return new FirstOrderFunctionDefinition(new IntType(), new FunctionName("f"), params, body, var("a"));
+    } // typecheckerWorkload
+
+    // int g(int y) { return y; }, for typecheckerWorkload to call
+    public static FirstOrderFunctionDefinition identity() {
+        final List<FormalParameter> params = new ArrayList<FormalParameter>();
+        params.add(new FormalParameter(new IntType(), new Variable("y")));
+        return new FirstOrderFunctionDefinition(new IntType(),
+                                                new FunctionName("g"),
+                                                params,
+                                                new ArrayList<Stmt>(),
+                                                var("y"));
+    } // identity
+
+    // numStmts statements after int a = 0; bool b = true; cycling through
+    // declarations, assignments, if, while, and print
+    public static List<Stmt> codeGeneratorWorkload(final int numStmts) {
+        final List<Stmt> body = new ArrayList<Stmt>();
+        body.add(new VariableDeclarationStmt(new IntType(), new Variable("a"), new IntegerLiteralExp(0)));
+        body.add(new VariableDeclarationStmt(new BoolType(), new Variable("b"), new BooleanLiteralExp(true)));
+        for (int index = 0; index < numStmts; index++) {
+            final Variable local = new Variable("x" + index);
+            switch (index % 5) {
+            case 0:
+                body.add(new VariableDeclarationStmt(new IntType(), local,
+                                                     new BinopExp(new BinopExp(var("a"), new PlusBOP(), new IntegerExp(3)),
+                                                                  new MultBOP(),
+                                                                  new IntegerLiteralExp(2))));
+                break;
+            case 1:
+                body.add(new VariableDeclarationStmt(new BoolType(), local,
+                                                     new BinopExp(new BinopExp(var("a"), new LessThanBOP(), new IntegerExp(7)),
+                                                                  new AndBOP(),
+                                                                  new BooleanExp(true))));
+                break;
+            case 2:
+                body.add(new AssignStmt(new Variable("a"),
+                                        new BinopExp(var("a"), new MinusBOP(), new IntegerLiteralExp(1))));
+                break;
+            case 3:
+                final List<Stmt> trueBranch = new ArrayList<Stmt>();
+                trueBranch.add(new AssignStmt(new Variable("a"), new IntegerExp(1)));
+                final List<Stmt> falseBranch = new ArrayList<Stmt>();
+                falseBranch.add(new PrintStmt(new Variable("a")));
+                body.add(new IfStmt(var("b"), trueBranch, falseBranch));
+                break;
+            default:
+                final List<Stmt> whileBody = new ArrayList<Stmt>();
+                whileBody.add(new AssignStmt(new Variable("b"), new BooleanLiteralExp(false)));
+                body.add(new WhileStmt(new BinopExp(var("b"), new EqualsBOP(), new BooleanExp(true)),
+                                       whileBody));
+            }
+        }
+        return body;
+    } // codeGeneratorWorkload
+
+    private static void generate(final List<Stmt> body) throws CodeGeneratorException {
+        final ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(V1_8, ACC_PUBLIC, "Benchmark", null, "java/lang/Object", null);
+        final MethodVisitor methodVisitor =
+            classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "f", "()V", null, null);
+        methodVisitor.visitCode();
+        new ExpressionStatementGenerator(new HashMap<ClassName, ClassDefinition>(),
+                                         null,
+                                         new VariableTable(),
+                                         methodVisitor).writeStatements(body);
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        classWriter.visitEnd();
+    } // generate
+
+    public static void benchmark(final int numStmts) throws IllTypedException, CodeGeneratorException {
+        final FirstOrderFunctionDefinition function = typecheckerWorkload(numStmts);
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        functions.add(identity());
+        functions.add(function);
+        final Typechecker typechecker = new Typechecker(new Program(functions, null));
+        final List<Stmt> body = codeGeneratorWorkload(numStmts);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            typechecker.typecheckFunction(function);
+            generate(body);
+        }
+
+        long typecheckNanos = 0;
+        long generateNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startNanos = System.nanoTime();
+            typechecker.typecheckFunction(function);
+            final long typecheckedNanos = System.nanoTime();
+            generate(body);
+            typecheckNanos += typecheckedNanos - startNanos;
+            generateNanos += System.nanoTime() - typecheckedNanos;
+        }
+
+        System.out.println(numStmts + " statements: typecheck " +
+                           (typecheckNanos / MEASURED_ROUNDS / numStmts) + " ns/statement, " +
+                           "generate " +
+                           (generateNanos / MEASURED_ROUNDS / numStmts) + " ns/statement, " +
+                           ((long)numStmts * MEASURED_ROUNDS * 1000000000L /
+                            (typecheckNanos + generateNanos)) + " statements/s both");
+    } // benchmark
+
+    public static void main(String[] args) throws IllTypedException, CodeGeneratorException {
+        // the first runs are mostly the JIT settling; only the later ones
+        // are worth comparing
+        for (int run = 0; run < 10; run++) {
+            benchmark(8000);
+        }
+    }
+} // CompilerBenchmark
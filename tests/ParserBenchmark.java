@@ -0,0 +1,270 @@
+package tests;
+import code.*;
+
+import java.text.ParseException;
+import java.util.List;
+
+// Not a test; run by hand with `java tests.ParserBenchmark` and compare
+// the numbers before and after a change to the parser.
+public class ParserBenchmark {
+    // ---BEGIN CONSTANTS---
+    public static final int WARMUP_ROUNDS = 5;
+    public static final int MEASURED_ROUNDS = 10;
+    // ---END CONSTANTS---
+
+    // v0 + v1 + ... + vn, as one big expression
+    public static String additionChain(final int numOperands) {
+        final StringBuilder result = new StringBuilder();
+        for (int index = 0; index < numOperands; index++) {
+            if (index > 0) {
+                result.append(" + ");
+            }
+            result.append('v');
+            result.append(index);
+        }
+        return result.toString();
+    } // additionChain
+
+    // v0 op v1 op ... op vn, cycling through the given operators
+    public static String operatorChain(final int numOperands, final String... operators) {
+        final StringBuilder result = new StringBuilder();
+        for (int index = 0; index < numOperands; index++) {
+            if (index > 0) {
+                result.append(' ');
+                result.append(operators[index % operators.length]);
+                result.append(' ');
+            }
+            result.append('v');
+            result.append(index);
+        }
+        return result.toString();
+    } // operatorChain
+
+    // numClasses classes, each with a field, a constructor, and a couple of
+    // methods with loops and calls in them
+    public static String program(final int numClasses) {
+        final StringBuilder result = new StringBuilder();
+        for (int index = 0; index < numClasses; index++) {
+            final String name = "C" + index;
+            result.append("Class ").append(name).append(" {\n");
+            result.append("  int count;\n");
+            result.append("  ").append(name).append("(int start) { this.count = start; }\n");
+            result.append("  public int step(int by) { this.count = this.count + by * 2; return this.count; }\n");
+            result.append("  public int run(int times) {\n");
+            result.append("    int total = 0;\n");
+            result.append("    while (times > 0) { total = total + this.step(times); times = times - 1; }\n");
+            result.append("    if (total >= 100) { total = total / 2; } else { total = total + 1; }\n");
+            result.append("    return total;\n");
+            result.append("  }\n");
+            result.append("}\n");
+        }
+        return result.toString();
+    } // program
+
+    // one class whose main has numStatements statements of every kind
+    public static String statements(final int numStatements) {
+        final StringBuilder result = new StringBuilder();
+        result.append("Class Statements {\n");
+        result.append("  int count;\n");
+        result.append("  Statements() { this.count = 0; }\n");
+        result.append("  void main() {\n");
+        result.append("    int x = 0;\n");
+        for (int index = 0; index < numStatements; index++) {
+            switch (index % 5) {
+            case 0:
+                result.append("    int v").append(index).append(" = x + ").append(index).append(" * 2;\n");
+                break;
+            case 1:
+                result.append("    if (x > 3) { x = x - 1; } else { x = x + 1; }\n");
+                break;
+            case 2:
+                result.append("    while (x < 10) { x = (x + 1) * 2; }\n");
+                break;
+            case 3:
+                result.append("    this.count = this.count + x;\n");
+                break;
+            default:
+                result.append("    print(x);\n");
+            }
+        }
+        result.append("  }\n");
+        result.append("}\n");
+        return result.toString();
+    } // statements
+
+    public static Exp parseFromList(final char[] input) throws TokenizerException, ParseException {
+        final List<Token> tokens = new Tokenizer(input).tokenize();
+        return new Parser(tokens.toArray(new Token[tokens.size()])).parseToplevelExp();
+    } // parseFromList
+
+    public static Exp parseFromStream(final char[] input) throws TokenizerException, ParseException {
+        return new Parser(new Tokenizer(input).tokenizeToStream()).parseToplevelExp();
+    } // parseFromStream
+
+    public static void benchmark(final String name,
+                                 final String source,
+                                 final boolean useStream) throws TokenizerException, ParseException {
+        final char[] input = source.toCharArray();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            if (useStream) {
+                parseFromStream(input);
+            } else {
+                parseFromList(input);
+            }
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = TokenizerBenchmark.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            if (useStream) {
+                parseFromStream(input);
+            } else {
+                parseFromList(input);
+            }
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += TokenizerBenchmark.allocatedBytes() - startBytes;
+        }
+
+        System.out.println(name + ((useStream) ? " (stream)" : " (Token[])") + ": " +
+                           (totalBytes / MEASURED_ROUNDS / input.length) + " bytes allocated/char, " +
+                           ((double)input.length * MEASURED_ROUNDS * 1000 / totalNanos) + " MB/s");
+    } // benchmark
+
+    // parsing alone, from an already tokenized stream
+    public static void benchmarkParse(final String name, final String source) throws TokenizerException, ParseException {
+        final TokenStream tokens = new Tokenizer(source).tokenizeToStream();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            new Parser(tokens).parseToplevelExp();
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = TokenizerBenchmark.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            new Parser(tokens).parseToplevelExp();
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += TokenizerBenchmark.allocatedBytes() - startBytes;
+        }
+
+        System.out.println(name + " (parse only): " +
+                           (totalBytes / MEASURED_ROUNDS / tokens.size()) + " bytes allocated/token, " +
+                           (totalNanos / MEASURED_ROUNDS / tokens.size()) + " ns/token");
+    } // benchmarkParse
+
+    // the same, but with memoization switched on or off
+    public static void benchmarkMemo(final String name,
+                                     final String source,
+                                     final boolean memoize) throws TokenizerException, ParseException {
+        final TokenStream tokens = new Tokenizer(source).tokenizeToStream();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            new Parser(tokens, Parser.DEFAULT_MAX_RECURSION_DEPTH, memoize).parseToplevelExp();
+        }
+
+        final long startNanos = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            new Parser(tokens, Parser.DEFAULT_MAX_RECURSION_DEPTH, memoize).parseToplevelExp();
+        }
+        final long totalNanos = System.nanoTime() - startNanos;
+
+        System.out.println(name + ((memoize) ? " (memoized)" : " (not memoized)") + ": " +
+                           (totalNanos / MEASURED_ROUNDS / tokens.size()) + " ns/token");
+    } // benchmarkMemo
+
+    // parseProgram alone, from an already tokenized stream; with lazyBodies,
+    // just the outline, leaving method bodies unparsed
+    public static void benchmarkProgram(final String name,
+                                        final String source,
+                                        final boolean lazyBodies) throws TokenizerException, ParseException {
+        final TokenStream tokens = new Tokenizer(source).tokenizeToStream();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            new Parser(tokens).parseProgram(null, lazyBodies);
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = TokenizerBenchmark.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            new Parser(tokens).parseProgram(null, lazyBodies);
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += TokenizerBenchmark.allocatedBytes() - startBytes;
+        }
+
+        System.out.println(name + ((lazyBodies) ? " (parseProgram, lazy bodies): " : " (parseProgram): ") +
+                           (totalBytes / MEASURED_ROUNDS / tokens.size()) + " bytes allocated/token, " +
+                           (totalNanos / MEASURED_ROUNDS / tokens.size()) + " ns/token");
+    } // benchmarkProgram
+
+    // the same program through ParallelParser, on a pool of the given size
+    public static void benchmarkParallelProgram(final String name,
+                                                final String source,
+                                                final int numThreads) throws TokenizerException, ParseException {
+        final TokenStream tokens = new Tokenizer(source).tokenizeToStream();
+        final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(numThreads);
+        try {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                ParallelParser.parseProgram(tokens, null, pool);
+            }
+
+            final long startNanos = System.nanoTime();
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                ParallelParser.parseProgram(tokens, null, pool);
+            }
+            final long totalNanos = System.nanoTime() - startNanos;
+
+            System.out.println(name + " (parallel, " + numThreads + " threads): " +
+                               (totalNanos / MEASURED_ROUNDS / 1000000) + " ms/round");
+        } finally {
+            pool.shutdown();
+        }
+    } // benchmarkParallelProgram
+
+    // tokenizing and parsing source again, against finding it in a ParseCache
+    public static void benchmarkCache(final String name, final String source) throws TokenizerException, ParseException {
+        final byte[] utf8 = source.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        final ParseCache cache = new ParseCache();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            cache.clear();
+            cache.parse(utf8, null);
+            cache.parse(utf8, null);
+        }
+
+        long missNanos = 0;
+        long hitNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            cache.clear();
+            final long startNanos = System.nanoTime();
+            cache.parse(utf8, null);
+            final long missedNanos = System.nanoTime();
+            cache.parse(utf8, null);
+            missNanos += missedNanos - startNanos;
+            hitNanos += System.nanoTime() - missedNanos;
+        }
+
+        System.out.println(name + " (parse cache): miss " + (missNanos / MEASURED_ROUNDS / 1000) + " us, hit " +
+                           (hitNanos / MEASURED_ROUNDS / 1000) + " us");
+    } // benchmarkCache
+
+    public static void main(String[] args) throws TokenizerException, ParseException {
+        final String chain = additionChain(100000);
+        benchmark("tokenize + parse addition chain", chain, false);
+        benchmark("tokenize + parse addition chain", chain, true);
+        benchmarkParse("addition chain", chain);
+        benchmarkParse("division chain", operatorChain(100000, "/"));
+        benchmarkParse("mixed chain", operatorChain(100000, "+", "-", "*", "/"));
+        benchmarkMemo("mixed chain", operatorChain(100000, "+", "-", "*", "/"), true);
+        benchmarkMemo("mixed chain", operatorChain(100000, "+", "-", "*", "/"), false);
+        benchmarkMemo("overlapping fors", ParserTest.overlappingFors(12), true);
+        benchmarkMemo("overlapping fors", ParserTest.overlappingFors(12), false);
+        benchmarkProgram("100,000 statements", statements(100000), false);
+        benchmarkProgram("5,000 classes", program(5000), false);
+        benchmarkProgram("5,000 classes", program(5000), true);
+        benchmarkCache("5,000 classes", program(5000));
+        benchmarkParallelProgram("5,000 classes", program(5000), 1);
+        benchmarkParallelProgram("5,000 classes", program(5000), Runtime.getRuntime().availableProcessors());
+        benchmarkParallelProgram("5,000 classes", program(5000), 4);
+    }
+} // ParserBenchmark
@@ -1,6 +1,11 @@
 package tests;
+import java.nio.charset.CharacterCodingException;
 import java.text.ParseException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
 import code.Parser;
 import code.*;
 public class ParserTest {
@@ -51,16 +56,18 @@ public class ParserTest {
     }
 
     public static void plusParses() throws ParseException {
-        assertParses(new PlusExp(new IntegerExp(1), new IntegerExp(2)),
+        assertParses(new BinopExp(new IntegerExp(1), new PlusBOP(), new IntegerExp(2)),
                      new IntegerToken(1),
                      new AdditionToken(),
                      new IntegerToken(2));
     }
 
     public static void plusIsLeftAssociative() throws ParseException {
-        assertParses(new PlusExp(new PlusExp(new IntegerExp(1),
-                                             new IntegerExp(2)),
-                                 new IntegerExp(3)),
+        assertParses(new BinopExp(new BinopExp(new IntegerExp(1),
+                                               new PlusBOP(),
+                                               new IntegerExp(2)),
+                                  new PlusBOP(),
+                                  new IntegerExp(3)),
                      new IntegerToken(1),
                      new AdditionToken(),
                      new IntegerToken(2),
@@ -69,19 +76,19 @@ public class ParserTest {
     }
     
     public static void subParses() throws ParseException {
-      assertParses(new SubExp(new IntegerExp(1), new IntegerExp(2)),
+      assertParses(new BinopExp(new IntegerExp(1), new MinusBOP(), new IntegerExp(2)),
                    new IntegerToken(1),
                    new SubtractionToken(),
                    new IntegerToken(2));
   }
     public static void multParses() throws ParseException {
-      assertParses(new MultExp(new IntegerExp(1), new IntegerExp(2)),
+      assertParses(new BinopExp(new IntegerExp(1), new MultBOP(), new IntegerExp(2)),
                    new IntegerToken(1),
                    new MultiplicationToken(),
                    new IntegerToken(2));
   }
     public static void divParses() throws ParseException {
-      assertParses(new DivExp(new IntegerExp(1), new IntegerExp(2)),
+      assertParses(new BinopExp(new IntegerExp(1), new DivBOP(), new IntegerExp(2)),
                    new IntegerToken(1),
                    new DivisionToken(),
                    new IntegerToken(2));
@@ -103,7 +110,7 @@ public class ParserTest {
                    new VariableToken("foo"));
   }
     public static void whileParses() throws ParseException {
-      assertParses(new WhileExp(new BooleanExp(true), new PlusExp(new IntegerExp(2), new IntegerExp(3))),
+      assertParses(new WhileExp(new BooleanExp(true), new BinopExp(new IntegerExp(2), new PlusBOP(), new IntegerExp(3))),
                    new WhileToken(),
                    new LeftParenToken(),
                    new BooleanToken(true),
@@ -132,7 +139,7 @@ public class ParserTest {
                    new VariableToken("class1"));
   }
     public static void ForParses() throws ParseException {
-      assertParses(new ForExp(new IntegerExp(2), new BooleanExp(true), new IntegerExp(2), new PlusExp(new IntegerExp(2), new IntegerExp(3))),
+      assertParses(new ForExp(new IntegerExp(2), new BooleanExp(true), new IntegerExp(2), new BinopExp(new IntegerExp(2), new PlusBOP(), new IntegerExp(3))),
                    new ForToken(),
                    new LeftParenToken(),
                    new IntegerToken(2),
@@ -166,7 +173,471 @@ public class ParserTest {
                    new VariableToken("name"),
                    new IntegerToken(2));
   }
-    public static void main(String[] args) throws ParseException {
+    public static void streamParses() throws ParseException, TokenizerException {
+        final Exp expected = new BinopExp(new IntegerExp(1), new PlusBOP(), new IntegerExp(2));
+        assert(expected.equals(new Parser(new Tokenizer("1 + 2").tokenizeToStream()).parseToplevelExp()));
+        System.out.print(expected.equals(new Parser(new Tokenizer("1 + 2").tokenizeToStream()).parseToplevelExp()));
+    }
+    public static void positionsRecorded() throws ParseException, TokenizerException {
+        final Exp result = new Parser(new Tokenizer("while (x)\n  y + 1").tokenizeToStream()).parseToplevelExp();
+        final WhileExp asWhile = (WhileExp)result;
+        assert(asWhile.getPosition() == 0);
+        assert(asWhile.cond.getPosition() == 7);
+        assert(asWhile.execute.getPosition() == 12);
+        System.out.print(asWhile.execute.getPosition() == 12);
+    }
+    public static void errorsGiveLine() throws TokenizerException {
+        try {
+            new Parser(new Tokenizer("while (x\n  y + 1").tokenizeToStream()).parseToplevelExp();
+            assert(false);
+        } catch (final ParseException e) {
+            assert(e.getMessage().contains("line 2, column 3"));
+            System.out.print(e.getMessage().contains("line 2, column 3"));
+        }
+    }
+    public static void missingOperandReported() throws TokenizerException {
+        try {
+            new Parser(new Tokenizer("1 / 2 *").tokenizeToStream()).parseToplevelExp();
+            assert(false);
+        } catch (final ParseException e) {
+            assert(e.getErrorOffset() == 4);
+            System.out.print(e.getErrorOffset() == 4);
+        }
+    }
+    public static Exp parseString(final String input) throws ParseException, TokenizerException {
+        return new Parser(new Tokenizer(input).tokenizeToStream()).parseToplevelExp();
+    }
+    public static void multBindsTighterThanPlus() throws ParseException, TokenizerException {
+        final Exp expected = new BinopExp(new IntegerExp(1),
+                                          new PlusBOP(),
+                                          new BinopExp(new IntegerExp(2), new MultBOP(), new IntegerExp(3)));
+        assert(expected.equals(parseString("1 + 2 * 3")));
+        System.out.print(expected.equals(parseString("1 + 2 * 3")));
+    }
+    public static void parenthesizedOperands() throws ParseException, TokenizerException {
+        final Exp expected = new BinopExp(new BinopExp(new IntegerExp(1), new PlusBOP(), new IntegerExp(2)),
+                                          new MultBOP(),
+                                          new BinopExp(new IntegerExp(3), new MinusBOP(), new IntegerExp(4)));
+        assert(expected.equals(parseString("(1 + 2) * (3 - 4)")));
+        System.out.print(expected.equals(parseString("(1 + 2) * (3 - 4)")));
+    }
+    public static void comparisonsAndLogic() throws ParseException, TokenizerException {
+        // 1 < 2 && 3 >= 4 || 5 != 6 == 7 < 8
+        final Exp expected =
+            new BinopExp(new BinopExp(new BinopExp(new IntegerExp(1), new LessThanBOP(), new IntegerExp(2)),
+                                      new AndBOP(),
+                                      new BinopExp(new IntegerExp(3), new GreaterThanEqualBOP(), new IntegerExp(4))),
+                         new OrBOP(),
+                         new BinopExp(new BinopExp(new IntegerExp(5), new NotEqualsBOP(), new IntegerExp(6)),
+                                      new EqualsBOP(),
+                                      new BinopExp(new IntegerExp(7), new LessThanBOP(), new IntegerExp(8))));
+        final String input = "1 < 2 && 3 >= 4 || 5 != 6 == 7 < 8";
+        assert(expected.equals(parseString(input)));
+        System.out.print(expected.equals(parseString(input)));
+    }
+    // deep enough that a recursive parser would overflow the Java stack
+    private static final int DEEP_NESTING = 200000;
+    private static String repeat(final String text, final int times) {
+        final StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int count = 0; count < times; count++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+    // The trees below are walked with loops, since equals and toString recurse
+    public static void deeplyNestedParens() throws ParseException, TokenizerException {
+        // ((...(1 + 1) + 1)...) + 1)
+        Exp exp = parseString(repeat("(", DEEP_NESTING) + "1" + repeat(" + 1)", DEEP_NESTING));
+        int depth = 0;
+        while (exp instanceof BinopExp) {
+            final BinopExp binop = (BinopExp)exp;
+            if (!(binop.bop instanceof PlusBOP) || !binop.right.equals(new IntegerExp(1))) {
+                break;
+            }
+            exp = binop.left;
+            depth++;
+        }
+        final boolean test = depth == DEEP_NESTING && exp.equals(new IntegerExp(1));
+        assert(test);
+        System.out.print(test);
+    }
+    public static void deeplyNestedStatements() throws ParseException, TokenizerException {
+        // while (x) return while (x) return ... y
+        Exp exp = parseString(repeat("while (x) return ", DEEP_NESTING) + "y");
+        int depth = 0;
+        while (exp instanceof WhileExp && ((WhileExp)exp).execute instanceof ReturnExp) {
+            exp = ((ReturnExp)((WhileExp)exp).execute).value;
+            depth++;
+        }
+        final boolean test = depth == DEEP_NESTING && exp instanceof VariableExp && ((VariableExp)exp).variable.equals(new Variable("y"));
+        assert(test);
+        System.out.print(test);
+    }
+    public static void deeplyNestedObjects() throws ParseException, TokenizerException {
+        // A c = new A(new A(...new A(this)...));
+        final String input =
+            "Class A { A(A inner) { } void main() { A c = " +
+            repeat("new A(", DEEP_NESTING) + "this" + repeat(")", DEEP_NESTING) +
+            "; } }";
+        final Program program = new Parser(new Tokenizer(input).tokenizeToStream()).parseProgram();
+        Exp exp = ((VariableDeclarationStmt)program.classDefs.get(0).main.body.get(0)).exp;
+        int depth = 0;
+        while (exp instanceof NewExp && ((NewExp)exp).actualParams.size() == 1) {
+            exp = ((NewExp)exp).actualParams.get(0);
+            depth++;
+        }
+        final boolean test = depth == DEEP_NESTING && exp instanceof VariableExp &&
+            ((VariableExp)exp).variable.equals(ClassGenerator.thisVariable);
+        assert(test);
+        System.out.print(test);
+    }
+    public static void deeplyNestedBlocks() throws ParseException, TokenizerException {
+        // if (b) { while (b) if (b) { while (b) ... print(b); ... } }
+        final String input =
+            "Class A { A() { } void main() { boolean b = true; " +
+            repeat("if (b) { while (b) ", DEEP_NESTING) + "print(b);" + repeat(" }", DEEP_NESTING) +
+            " } }";
+        final Program program = new Parser(new Tokenizer(input).tokenizeToStream()).parseProgram();
+        final List<Stmt> main = program.classDefs.get(0).main.body;
+        Stmt stmt = main.get(main.size() - 1);
+        int depth = 0;
+        while (stmt instanceof IfStmt && ((IfStmt)stmt).trueBranch.size() == 1 &&
+               ((IfStmt)stmt).trueBranch.get(0) instanceof WhileStmt &&
+               ((WhileStmt)((IfStmt)stmt).trueBranch.get(0)).body.size() == 1) {
+            stmt = ((WhileStmt)((IfStmt)stmt).trueBranch.get(0)).body.get(0);
+            depth++;
+        }
+        final boolean test = main.size() == 2 && depth == DEEP_NESTING && stmt instanceof PrintStmt;
+        assert(test);
+        System.out.print(test);
+    }
+    // enough of an expression inside a class to tell two parses of it apart
+    private static String describe(final Exp exp) {
+        final String at = exp.getClass().getSimpleName() + "@" + exp.getPosition();
+        if (exp instanceof NewExp) {
+            return at + "(" + ((NewExp)exp).name + " " + describe(((NewExp)exp).actualParams) + ")";
+        } else if (exp instanceof MethodCallExp) {
+            final MethodCallExp call = (MethodCallExp)exp;
+            return at + "(" + describe(call.callOn) + " " + call.callOnName + "." + call.name + " " +
+                describe(call.actualParams) + ")";
+        } else if (exp instanceof GetExp) {
+            final GetExp get = (GetExp)exp;
+            return at + "(" + describe(get.target) + " " + get.name + "." + get.field + ")";
+        } else if (exp instanceof BinopExp) {
+            final BinopExp binop = (BinopExp)exp;
+            return at + "(" + describe(binop.left) + " " + binop.bop.getClass().getSimpleName() + " " +
+                describe(binop.right) + ")";
+        } else {
+            return at + "(" + exp + ")";
+        }
+    }
+    private static String describe(final List<Exp> exps) {
+        final StringBuilder result = new StringBuilder("[");
+        for (final Exp exp : exps) {
+            result.append(describe(exp)).append(' ');
+        }
+        return result.append(']').toString();
+    }
+    public static void explicitStackMatchesRecursiveInClass() throws ParseException, TokenizerException {
+        final String input =
+            "Class B { int n; B() { } public int get(int x, B other) { return x; } }\n" +
+            "Class A { B b; A(B b) { this.b = b; }\n" +
+            "  void main() {\n" +
+            "    A a = new A(new B());\n" +
+            "    int x = a.b.get(1 + a.b.get(2, new B()), a.b) * (new B().get(3, a.b.n) + a.b.n);\n" +
+            "    boolean t = true && a.b.get(a.b.get(x, a.b), new B()) < x;\n" +
+            "  }\n" +
+            "}\n";
+        final TokenStream tokens = new Tokenizer(input).tokenizeToStream();
+        final List<Stmt> recursive = new Parser(tokens).parseProgram().classDefs.get(1).main.body;
+        final List<Stmt> explicit = new Parser(tokens, 0).parseProgram().classDefs.get(1).main.body;
+        boolean test = recursive.size() == 3 && explicit.size() == 3;
+        for (int index = 0; test && index < recursive.size(); index++) {
+            test = describe(((VariableDeclarationStmt)recursive.get(index)).exp).equals(
+                describe(((VariableDeclarationStmt)explicit.get(index)).exp));
+        }
+        assert(test);
+        System.out.print(test);
+    }
+    public static void explicitStackMatchesRecursive() throws ParseException, TokenizerException {
+        final String[] inputs = {
+            "1 + 2 * 3",
+            "(1 + 2) * (3 - 4) / 5",
+            "1 < 2 && 3 >= 4 || 5 != 6 == 7 < 8",
+            "if (1 < 2) 3 + 1 else return (4)",
+            "while (1) return 1 + 2",
+        };
+        boolean test = true;
+        for (final String input : inputs) {
+            final TokenStream tokens = new Tokenizer(input).tokenizeToStream();
+            final Exp recursive = new Parser(tokens).parseToplevelExp();
+            final Exp explicit = new Parser(tokens, 0).parseToplevelExp();
+            test = test && recursive.equals(explicit) && recursive.getPosition() == explicit.getPosition();
+        }
+        assert(test);
+        System.out.print(test);
+    }
+    // for ( return return E(n - 1) ) 1, where E(0) is 1.  The init, cond,
+    // and inc of each for all start inside each other, so without
+    // memoization this takes 3^n parses of E(0)
+    public static String overlappingFors(final int n) {
+        return repeat("for ( return return ", n) + "1" + repeat(" ) 1", n);
+    }
+    public static void memoizedParseIsLinear() throws ParseException, TokenizerException {
+        // equals would take exponential time too, since memoized trees share
+        // subtrees; just follow the incs down instead
+        final TokenStream tokens = new Tokenizer(overlappingFors(40)).tokenizeToStream();
+        boolean test = true;
+        for (final Exp result : new Exp[] { new Parser(tokens).parseToplevelExp(),
+                                            new Parser(tokens, 0).parseToplevelExp() }) {
+            Exp exp = result;
+            int depth = 0;
+            while (exp instanceof ForExp) {
+                exp = ((ForExp)exp).inc;
+                depth++;
+            }
+            test = test && depth == 40 && exp.equals(new IntegerExp(1));
+        }
+        assert(test);
+        System.out.print(test);
+    }
+    public static void memoizationDoesNotChangeResult() throws ParseException, TokenizerException {
+        final TokenStream tokens = new Tokenizer(overlappingFors(5)).tokenizeToStream();
+        final Exp memoized = new Parser(tokens).parseToplevelExp();
+        final Exp unmemoized = new Parser(tokens, Parser.DEFAULT_MAX_RECURSION_DEPTH, false).parseToplevelExp();
+        final boolean test = memoized.equals(unmemoized) && memoized.getPosition() == unmemoized.getPosition();
+        assert(test);
+        System.out.print(test);
+    }
+    public static void programParses() throws ParseException, TokenizerException {
+        final String input =
+            "Class Counter {\n" +
+            "  int left;\n" +
+            "  Counter(int start) { this.left = start; }\n" +
+            "  void main() { Counter c = new Counter(2); boolean more = c.more(); print(more); }\n" +
+            "  public boolean more() { return this.left > 0; }\n" +
+            "}\n";
+        final Program program = new Parser(new Tokenizer(input).tokenizeToStream()).parseProgram();
+        final ClassDefinition counter = program.classDefs.get(0);
+        final Stmt put = counter.constructor.body.get(0);
+        final Stmt call = counter.main.body.get(1);
+        final boolean test =
+            program.classDefs.size() == 1 &&
+            counter.name.equals(new ClassName("Counter")) &&
+            counter.extendsName.equals(new ClassName(ClassGenerator.objectName)) &&
+            counter.instanceVariables.size() == 1 &&
+            counter.constructor.formalParams.size() == 1 &&
+            put instanceof PutStmt &&
+            ((PutStmt)put).name.equals(new ClassName("Counter")) &&
+            counter.main.body.size() == 3 &&
+            ((VariableDeclarationStmt)call).exp instanceof MethodCallExp &&
+            counter.methods.size() == 1 &&
+            counter.methods.get(0).getReturned() instanceof BinopExp &&
+            program.lines.line(call.getPosition()) == 4;
+        assert(test);
+        System.out.print(test);
+    }
+    // enough of a program's shape to tell two parses of it apart
+    public static String describe(final Program program) {
+        final StringBuilder result = new StringBuilder();
+        for (final ClassDefinition classDef : program.classDefs) {
+            result.append(classDef.name).append(' ').append(classDef.instanceVariables);
+            final List<Callable> callables = new ArrayList<Callable>();
+            callables.add(classDef.constructor);
+            callables.add(classDef.main);
+            callables.addAll(classDef.methods);
+            for (final Callable callable : callables) {
+                result.append(' ').append(callable.name).append(callable.formalParams);
+                for (final Stmt stmt : callable.body) {
+                    result.append(' ').append(stmt.getClass().getSimpleName()).append('@').append(stmt.getPosition());
+                }
+            }
+            result.append('\n');
+        }
+        return result.toString();
+    }
+    public static void parallelMatchesSequential() throws ParseException, TokenizerException {
+        final TokenStream tokens = new Tokenizer(ParserBenchmark.program(300)).tokenizeToStream();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Program sequential = new Parser(tokens).parseProgram();
+            final Program parallel = ParallelParser.parseProgram(tokens, null, pool);
+            final boolean test = parallel.classDefs.size() == 300 && describe(sequential).equals(describe(parallel));
+            assert(test);
+            System.out.print(test);
+        } finally {
+            pool.shutdown();
+        }
+    }
+    public static void lazyBodiesMatchEager() throws ParseException, TokenizerException {
+        final TokenStream tokens = new Tokenizer(ParserBenchmark.program(50)).tokenizeToStream();
+        final Program eager = new Parser(tokens).parseProgram();
+        final Program lazy = new Parser(tokens).parseProgram(null, true);
+        final MethodDefinition method = lazy.classDefs.get(7).methods.get(0);
+        final boolean untouched = !method.getLazyBody().isMaterialized();
+        // describe walks every body, so this parses them all
+        final boolean test =
+            untouched &&
+            describe(eager).equals(describe(lazy)) &&
+            method.getLazyBody().isMaterialized() &&
+            method.getReturned().getPosition() == eager.classDefs.get(7).methods.get(0).getReturned().getPosition();
+        assert(test);
+        System.out.print(test);
+    }
+    public static void lazyBodyErrorWaits() throws ParseException, TokenizerException {
+        // the method is missing a semicolon, which isn't noticed until its body is parsed
+        final String input = "Class Bad { Bad() { } public int get() { int x = 1 return x; } }";
+        final Program program = new Parser(new Tokenizer(input).tokenizeToStream()).parseProgram(null, true);
+        final LazyBody body = program.classDefs.get(0).methods.get(0).getLazyBody();
+        boolean test = false;
+        try {
+            body.materialize();
+        } catch (final ParseException e) {
+            test = !body.isMaterialized();
+        }
+        try {
+            program.classDefs.get(0).methods.get(0).body.size();
+            test = false;
+        } catch (final IllegalStateException e) {
+            test = test && e.getCause() instanceof ParseException;
+        }
+        assert(test);
+        System.out.print(test);
+    }
+    public static void recoveryFindsEveryError() throws TokenizerException {
+        final String input =
+            "Class A {\n" +
+            "  int ;\n" +
+            "  A() { }\n" +
+            "  public int f() { int y = 1 int z = 2; return y; }\n" +
+            "}\n" +
+            "Class B extends {\n" +
+            "  B() { }\n" +
+            "}\n" +
+            "Class C {\n" +
+            "  C() { }\n" +
+            "  public int g() { return 1; }\n" +
+            "}\n";
+        List<ParseException> errors = null;
+        boolean truncated = true;
+        try {
+            new Parser(new Tokenizer(input).tokenizeToStream()).parseProgramRecovering(null);
+        } catch (final ParseErrors e) {
+            errors = e.errors;
+            truncated = e.truncated;
+        } catch (final ParseException e) {
+        }
+        final boolean test =
+            errors != null &&
+            !truncated &&
+            errors.size() == 3 &&
+            errors.get(0).getMessage().contains("line 2,") &&
+            errors.get(1).getMessage().contains("line 4,") &&
+            errors.get(2).getMessage().contains("line 6,");
+        assert(test);
+        System.out.print(test);
+    }
+    public static void recoveryStopsAtLimit() throws ParseException, TokenizerException {
+        final StringBuilder input = new StringBuilder();
+        for (int index = 0; index < 10; index++) {
+            input.append("Class Bad").append(index).append(" { Bad").append(index).append("() { int x = 1 } }\n");
+        }
+        final TokenStream tokens = new Tokenizer(input.toString()).tokenizeToStream();
+        ParseErrors all = null;
+        ParseErrors capped = null;
+        try {
+            new Parser(tokens).parseProgramRecovering(null);
+        } catch (final ParseErrors e) {
+            all = e;
+        }
+        try {
+            new Parser(tokens).parseProgramRecovering(null, 4);
+        } catch (final ParseErrors e) {
+            capped = e;
+        }
+        // and a program without errors parses just as it would otherwise
+        final TokenStream good = new Tokenizer(ParserBenchmark.program(20)).tokenizeToStream();
+        final boolean test =
+            all != null && all.errors.size() == 10 && !all.truncated &&
+            capped != null && capped.errors.size() == 4 && capped.truncated &&
+            capped.getErrorOffset() == all.errors.get(0).getErrorOffset() &&
+            describe(new Parser(good).parseProgramRecovering(null)).equals(describe(new Parser(good).parseProgram()));
+        assert(test);
+        System.out.print(test);
+    }
+    public static void parseCacheHitsUnchangedSource() throws ParseException, TokenizerException {
+        final String source = ParserBenchmark.program(3);
+        final ParseCache cache = new ParseCache();
+        final Program first = cache.parse(source, "A.jc");
+        final Program again = cache.parse(source, "A.jc");
+        final Program renamed = cache.parse(source, "B.jc");
+        final Program changed = cache.parse(source.replace("count", "total"), "A.jc");
+        final boolean test =
+            again == first &&
+            renamed.classDefs == first.classDefs && "B.jc".equals(renamed.sourceFile) &&
+            changed != first &&
+            describe(first).equals(describe(new Parser(new Tokenizer(source).tokenizeToStream()).parseProgram())) &&
+            cache.hits() == 2 && cache.misses() == 2 && cache.size() == 2;
+        assert(test);
+        System.out.print(test);
+    }
+    public static void parseCacheEvictsLeastRecent() throws ParseException, TokenizerException {
+        final String a = "Class A { A() { } }";
+        final String b = "Class B { B() { } }";
+        final String c = "Class C { C() { } }";
+        final long size = (long)new Tokenizer(a).tokenizeToStream().size() * ParseCache.BYTES_PER_TOKEN +
+            ParseCache.BYTES_PER_ENTRY;
+        final ParseCache cache = new ParseCache(2 * size);
+        cache.parse(a, null);
+        cache.parse(b, null);
+        cache.parse(a, null);
+        // b is the least recently used now
+        cache.parse(c, null);
+        final boolean fitted = cache.size() == 2 && cache.bytes() == 2 * size && cache.evictions() == 1;
+        cache.parse(a, null);
+        final long hitsBefore = cache.hits();
+        cache.parse(b, null);
+        final boolean test = fitted && hitsBefore == 2 && cache.hits() == 2 && cache.misses() == 4;
+        assert(test);
+        System.out.print(test);
+    }
+    public static void parseCacheRejectsMalformedUtf8() throws ParseException {
+        // a lone continuation byte inside an identifier, which mustn't be
+        // quietly decoded to U+FFFD
+        final byte[] source = { 'C', 'l', 'a', 's', 's', ' ', 'A', (byte)0x80, ' ', '{', ' ', '}' };
+        boolean test = false;
+        try {
+            new ParseCache().parse(source, null);
+        } catch (final TokenizerException e) {
+            test = e.getCause() instanceof CharacterCodingException;
+        }
+        assert(test);
+        System.out.print(test);
+    }
+    public static void parallelReportsSameError() throws TokenizerException {
+        // the last class is missing a semicolon
+        final String input = ParserBenchmark.program(300) + "Class Bad { Bad() { int x = 1 } }";
+        final TokenStream tokens = new Tokenizer(input).tokenizeToStream();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        String sequential = null;
+        String parallel = null;
+        try {
+            new Parser(tokens).parseProgram();
+        } catch (final ParseException e) {
+            sequential = e.getMessage() + e.getErrorOffset();
+        }
+        try {
+            ParallelParser.parseProgram(tokens, null, pool);
+        } catch (final ParseException e) {
+            parallel = e.getMessage() + e.getErrorOffset();
+        } finally {
+            pool.shutdown();
+        }
+        final boolean test = sequential != null && sequential.equals(parallel);
+        assert(test);
+        System.out.print(test);
+    }
+    public static void main(String[] args) throws ParseException, TokenizerException {
     	//emptyDoesNotParse(); //causes crashing because null will not work so it works
     	int i = 0;
     	integerParses();
@@ -209,6 +680,56 @@ public class ParserTest {
     	System.out.println(" "+i++);
     	methoddefParses();
     	System.out.println(" "+i++);
+    	streamParses();
+    	System.out.println(" "+i++);
+    	positionsRecorded();
+    	System.out.println(" "+i++);
+    	errorsGiveLine();
+    	System.out.println(" "+i++);
+    	missingOperandReported();
+    	System.out.println(" "+i++);
+    	multBindsTighterThanPlus();
+    	System.out.println(" "+i++);
+    	parenthesizedOperands();
+    	System.out.println(" "+i++);
+    	comparisonsAndLogic();
+    	System.out.println(" "+i++);
+    	deeplyNestedParens();
+    	System.out.println(" "+i++);
+    	deeplyNestedStatements();
+    	System.out.println(" "+i++);
+    	deeplyNestedObjects();
+    	System.out.println(" "+i++);
+    	deeplyNestedBlocks();
+    	System.out.println(" "+i++);
+    	explicitStackMatchesRecursiveInClass();
+    	System.out.println(" "+i++);
+    	explicitStackMatchesRecursive();
+    	System.out.println(" "+i++);
+    	memoizedParseIsLinear();
+    	System.out.println(" "+i++);
+    	memoizationDoesNotChangeResult();
+    	System.out.println(" "+i++);
+    	programParses();
+    	System.out.println(" "+i++);
+    	parallelMatchesSequential();
+    	System.out.println(" "+i++);
+    	parallelReportsSameError();
+    	System.out.println(" "+i++);
+    	lazyBodiesMatchEager();
+    	System.out.println(" "+i++);
+    	lazyBodyErrorWaits();
+    	System.out.println(" "+i++);
+    	recoveryFindsEveryError();
+    	System.out.println(" "+i++);
+    	recoveryStopsAtLimit();
+    	System.out.println(" "+i++);
+    	parseCacheHitsUnchangedSource();
+    	System.out.println(" "+i++);
+    	parseCacheEvictsLeastRecent();
+    	System.out.println(" "+i++);
+    	parseCacheRejectsMalformedUtf8();
+    	System.out.println(" "+i++);
     }
 } // ParserTest
     
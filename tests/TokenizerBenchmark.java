@@ -0,0 +1,263 @@
+package tests;
+import code.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+// Not a test; run by hand with `java tests.TokenizerBenchmark` and compare
+// the numbers before and after a change to the tokenizer.
+public class TokenizerBenchmark {
+    // ---BEGIN CONSTANTS---
+    public static final int WARMUP_ROUNDS = 5;
+    public static final int MEASURED_ROUNDS = 10;
+    // ---END CONSTANTS---
+
+    // bytes allocated so far by the current thread, or -1 if the JVM
+    // can't tell us
+    public static long allocatedBytes() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        } else {
+            return -1;
+        }
+    } // allocatedBytes
+
+    // heap in use after a full collection
+    public static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int round = 0; round < 3; round++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    } // usedHeap
+
+    // generated code tends to have long mangled names, so build a source of
+    // roughly the given size out of those
+    public static String longIdentifierSource(final int approximateSize,
+                                              final int identifierLength) {
+        final StringBuilder result = new StringBuilder(approximateSize + identifierLength + 16);
+        int counter = 0;
+        while (result.length() < approximateSize) {
+            result.append('v');
+            final String suffix = Integer.toString(counter++);
+            for (int index = suffix.length() + 1; index < identifierLength; index++) {
+                result.append('x');
+            }
+            result.append(suffix);
+            result.append(" ( ");
+            result.append(counter);
+            result.append(" ) ");
+        }
+        return result.toString();
+    } // longIdentifierSource
+
+    // mostly punctuation and keywords, which carry no data of their own
+    public static String punctuationSource(final int approximateSize) {
+        final String chunk = "if ( ) else while ( == ) return ( != ) * / <= >= && || this ++ -- ";
+        final StringBuilder result = new StringBuilder(approximateSize + chunk.length());
+        while (result.length() < approximateSize) {
+            result.append(chunk);
+        }
+        return result.toString();
+    } // punctuationSource
+
+    public static void benchmark(final String name, final String source) throws TokenizerException {
+        final char[] input = source.toCharArray();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            new Tokenizer(input).tokenize();
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        int numTokens = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long startNanos = System.nanoTime();
+            final List<Token> tokens = new Tokenizer(input).tokenize();
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += allocatedBytes() - startBytes;
+            numTokens = tokens.size();
+        }
+
+        System.out.println(name + ": " +
+                           numTokens + " tokens, " +
+                           (totalBytes / MEASURED_ROUNDS / numTokens) + " bytes/token, " +
+                           (totalNanos / MEASURED_ROUNDS / 1000000) + " ms/round");
+    } // benchmark
+
+    public static void benchmarkStream(final String name, final String source) throws TokenizerException {
+        final char[] input = source.toCharArray();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            new Tokenizer(input).tokenizeToStream();
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        int numTokens = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long startNanos = System.nanoTime();
+            final TokenStream tokens = new Tokenizer(input).tokenizeToStream();
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += allocatedBytes() - startBytes;
+            numTokens = tokens.size();
+        }
+
+        System.out.println(name + " (stream): " +
+                           numTokens + " tokens, " +
+                           (totalBytes / MEASURED_ROUNDS / numTokens) + " bytes/token, " +
+                           (totalNanos / MEASURED_ROUNDS / 1000000) + " ms/round");
+    } // benchmarkStream
+
+    public static void benchmarkParallel(final String name, final String source) throws TokenizerException {
+        final char[] input = source.toCharArray();
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            ParallelTokenizer.tokenizeToStream(input);
+        }
+
+        long totalNanos = 0;
+        int numTokens = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startNanos = System.nanoTime();
+            numTokens = ParallelTokenizer.tokenizeToStream(input).size();
+            totalNanos += System.nanoTime() - startNanos;
+        }
+
+        System.out.println(name + " (parallel, " +
+                           java.util.concurrent.ForkJoinPool.commonPool().getParallelism() + " threads): " +
+                           numTokens + " tokens, " +
+                           (totalNanos / MEASURED_ROUNDS / 1000000) + " ms/round");
+    } // benchmarkParallel
+
+    // one character typed in the middle, relexed against tokenized from scratch
+    public static void benchmarkRelex(final String name, final String source) throws TokenizerException {
+        final TokenStream old = new Tokenizer(source).tokenizeToStream();
+        final int offset = source.length() / 2;
+        final String edited = source.substring(0, offset) + "q" + source.substring(offset);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            IncrementalTokenizer.relex(old, offset, 0, "q");
+            new Tokenizer(edited).tokenizeToStream();
+        }
+
+        long relexNanos = 0;
+        long fullNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long startNanos = System.nanoTime();
+            IncrementalTokenizer.relex(old, offset, 0, "q");
+            relexNanos += System.nanoTime() - startNanos;
+
+            startNanos = System.nanoTime();
+            new Tokenizer(edited).tokenizeToStream();
+            fullNanos += System.nanoTime() - startNanos;
+        }
+
+        System.out.println(name + " one-character edit: " +
+                           (relexNanos / MEASURED_ROUNDS / 1000) + " us relexed, " +
+                           (fullNanos / MEASURED_ROUNDS / 1000) + " us from scratch");
+    } // benchmarkRelex
+
+    // pulls tokens one at a time out of a Reader, keeping none of them
+    public static void benchmarkReader(final String name, final String source) throws TokenizerException {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            final Tokenizer tokenizer = new Tokenizer(new java.io.StringReader(source));
+            while (tokenizer.next() != null) {}
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        int numTokens = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = allocatedBytes();
+            final long startNanos = System.nanoTime();
+            final Tokenizer tokenizer = new Tokenizer(new java.io.StringReader(source));
+            numTokens = 0;
+            while (tokenizer.next() != null) {
+                numTokens++;
+            }
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += allocatedBytes() - startBytes;
+        }
+
+        System.out.println(name + " (reader): " +
+                           numTokens + " tokens, " +
+                           (totalBytes / MEASURED_ROUNDS / numTokens) + " bytes/token, " +
+                           (totalNanos / MEASURED_ROUNDS / 1000000) + " ms/round");
+    } // benchmarkReader
+
+    // reading the file into a String first, against lexing it from a mapping
+    public static void benchmarkFile(final String name, final String source) throws TokenizerException, java.io.IOException {
+        final java.nio.file.Path file = java.nio.file.Files.createTempFile("benchmark", ".jc");
+        try {
+            java.nio.file.Files.write(file, source.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            long readBytes = 0;
+            long mappedBytes = 0;
+            long readNanos = 0;
+            long mappedNanos = 0;
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                final boolean measured = round >= WARMUP_ROUNDS;
+                long startBytes = allocatedBytes();
+                long startNanos = System.nanoTime();
+                new Tokenizer(new String(java.nio.file.Files.readAllBytes(file),
+                                         java.nio.charset.StandardCharsets.UTF_8).toCharArray()).tokenize();
+                if (measured) {
+                    readNanos += System.nanoTime() - startNanos;
+                    readBytes += allocatedBytes() - startBytes;
+                }
+
+                startBytes = allocatedBytes();
+                startNanos = System.nanoTime();
+                Tokenizer.forFile(file).tokenize();
+                if (measured) {
+                    mappedNanos += System.nanoTime() - startNanos;
+                    mappedBytes += allocatedBytes() - startBytes;
+                }
+            }
+
+            System.out.println(name + " from file: " +
+                               (readBytes / MEASURED_ROUNDS / 1024) + " KB, " +
+                               (readNanos / MEASURED_ROUNDS / 1000000) + " ms read and decoded; " +
+                               (mappedBytes / MEASURED_ROUNDS / 1024) + " KB, " +
+                               (mappedNanos / MEASURED_ROUNDS / 1000000) + " ms mapped");
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    } // benchmarkFile
+
+    // how much heap the tokens themselves keep alive, not counting the input
+    public static void retainedHeap(final String name, final String source) throws TokenizerException {
+        final char[] input = source.toCharArray();
+
+        long before = usedHeap();
+        final List<Token> list = new Tokenizer(input).tokenize();
+        final long listBytes = usedHeap() - before;
+
+        before = usedHeap();
+        final TokenStream stream = new Tokenizer(input).tokenizeToStream();
+        final long streamBytes = usedHeap() - before;
+
+        System.out.println(name + " retained: " +
+                           (listBytes / list.size()) + " bytes/token as List<Token>, " +
+                           (streamBytes / stream.size()) + " bytes/token as TokenStream");
+    } // retainedHeap
+
+    public static void main(String[] args) throws TokenizerException, java.io.IOException {
+        benchmark("short identifiers", longIdentifierSource(1 << 20, 4));
+        benchmark("long identifiers", longIdentifierSource(1 << 20, 64));
+        benchmark("punctuation and keywords", punctuationSource(1 << 20));
+        benchmarkStream("short identifiers", longIdentifierSource(1 << 20, 4));
+        benchmarkStream("long identifiers", longIdentifierSource(1 << 20, 64));
+        benchmarkStream("punctuation and keywords", punctuationSource(1 << 20));
+        benchmarkParallel("short identifiers", longIdentifierSource(1 << 24, 4));
+        benchmarkStream("short identifiers", longIdentifierSource(1 << 24, 4));
+        benchmarkRelex("short identifiers", longIdentifierSource(1 << 20, 4));
+        benchmarkReader("short identifiers", longIdentifierSource(1 << 20, 4));
+        benchmarkReader("long identifiers", longIdentifierSource(1 << 20, 64));
+        benchmarkReader("punctuation and keywords", punctuationSource(1 << 20));
+        benchmarkFile("short identifiers", longIdentifierSource(1 << 20, 4));
+        benchmarkFile("punctuation and keywords", punctuationSource(1 << 20));
+        retainedHeap("short identifiers", longIdentifierSource(1 << 20, 4));
+        retainedHeap("long identifiers", longIdentifierSource(1 << 20, 64));
+        retainedHeap("punctuation and keywords", punctuationSource(1 << 20));
+    }
+} // TokenizerBenchmark
@@ -43,6 +43,13 @@ public class TokenizerTest {
     public static void testVariableContainingReservedWords() throws TokenizerException {
         testTokenizes("ifelse", new VariableToken("ifelse"));
     }
+
+    public static void testVariableNameComesFromInput() throws TokenizerException {
+        final List<Token> tokens = new Tokenizer("foo bar1").tokenize();
+        assert(((VariableToken)tokens.get(0)).getName().equals("foo"));
+        assert(((VariableToken)tokens.get(1)).getName().equals("bar1"));
+        assert(tokens.get(1).hashCode() == "bar1".hashCode());
+    }
     
     public static void testPrint() throws TokenizerException {
       testTokenizes("print", new PrintToken());
@@ -82,6 +89,18 @@ public class TokenizerTest {
   }
     public static void testPrivate() throws TokenizerException {
       testTokenizes("private", new PrivateToken());
+  }
+    public static void testExtends() throws TokenizerException {
+      testTokenizes("extends", new ExtendsToken());
+  }
+    public static void testNew() throws TokenizerException {
+      testTokenizes("new", new NewToken());
+  }
+    public static void testContinue() throws TokenizerException {
+      testTokenizes("continue", new ContinueToken());
+  }
+    public static void testKeywordPrefixIsVariable() throws TokenizerException {
+      testTokenizes("ne whil protectedx", new VariableToken("ne"), new VariableToken("whil"), new VariableToken("protectedx"));
   }
   public static void testAddition() throws TokenizerException {
     testTokenizes("+", new AdditionToken());
@@ -132,19 +151,247 @@ public static void testIncrement() throws TokenizerException {
 public static void testDecrement() throws TokenizerException {
   testTokenizes("--", new DecrementToken());
 }
+    public static void testPunctuationIsShared() throws TokenizerException {
+        final List<Token> tokens = new Tokenizer("( ( if").tokenize();
+        assert(tokens.get(0) == LeftParenToken.INSTANCE);
+        assert(tokens.get(1) == LeftParenToken.INSTANCE);
+        assert(tokens.get(2) == IfToken.INSTANCE);
+    }
+
+    public static void testOperatorsBetweenOperands() throws TokenizerException {
+        testTokenizes("x+1 - y=z",
+                      new VariableToken("x"),
+                      new AdditionToken(),
+                      new IntegerToken(1),
+                      new SubtractionToken(),
+                      new VariableToken("y"),
+                      new EqualToken(),
+                      new VariableToken("z"));
+    }
+
+    public static void testStreamMatchesTokens() throws TokenizerException {
+        final String input = "if (x1 <= 42) print(y) else while (!done) z++";
+        final TokenStream stream = new Tokenizer(input).tokenizeToStream();
+        assert(stream.toTokens().equals(new Tokenizer(input).tokenize()));
+        assert(stream.kind(2) == TokenKind.VARIABLE);
+        assert(stream.text(2).equals("x1"));
+        assert(stream.intValue(4) == 42);
+        assert(stream.kind(stream.size()) == TokenKind.EOF);
+    }
+
+    // a buffer this small makes most tokens straddle a refill
+    public static void testReaderMatchesTokens() throws TokenizerException {
+        final String input = "if (x1 <= 42) print(longerName) else while (!done) z++ 12345";
+        final Tokenizer streaming = new Tokenizer(new java.io.StringReader(input), 11);
+        final java.util.List<Token> streamed = new java.util.ArrayList<Token>();
+        Token token = streaming.next();
+        while (token != null) {
+            streamed.add(token);
+            token = streaming.next();
+        }
+        assert(streaming.next() == null);
+        assert(streamed.equals(new Tokenizer(input).tokenize()));
+    }
+
+    public static void testChannelMatchesTokens() throws TokenizerException {
+        final String input = "Class Foo extends Bar  x <= y";
+        final java.nio.channels.ReadableByteChannel channel =
+            java.nio.channels.Channels.newChannel(new java.io.ByteArrayInputStream(input.getBytes(java.nio.charset.StandardCharsets.UTF_8)));
+        assert(new Tokenizer(channel).tokenize().equals(new Tokenizer(input).tokenize()));
+    }
+
+    public static void testUtf8BufferMatchesTokens() throws TokenizerException {
+        final String input = "caf\u00e9 = na\u00efve + \u03bb1 * x \u4e2d\u6587 <= 7";
+        final java.nio.ByteBuffer bytes =
+            java.nio.ByteBuffer.wrap(input.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+        assert(new Tokenizer(bytes).tokenize().equals(new Tokenizer(input).tokenize()));
+    }
+
+    public static void testMalformedUtf8() {
+        final byte[] bytes = { 'x', ' ', (byte)0xC3 };
+        try {
+            new Tokenizer(java.nio.ByteBuffer.wrap(bytes)).tokenize();
+            assert(false);
+        } catch (final TokenizerException e) {}
+    }
+
+    public static void testMappedFileMatchesTokens() throws TokenizerException, java.io.IOException {
+        final String input = "while (i < 10) print(caf\u00e9)";
+        final java.nio.file.Path file = java.nio.file.Files.createTempFile("tokenizer", ".jc");
+        try {
+            java.nio.file.Files.write(file, input.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            assert(Tokenizer.forFile(file).tokenize().equals(new Tokenizer(input).tokenize()));
+        } finally {
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    // big enough to be cut into several chunks
+    public static String largeSource() {
+        final String chunk = "if (x1 <= 42) print(longerName) else while (!done) z++ 12345 a-b\n";
+        final StringBuilder result = new StringBuilder();
+        while (result.length() < 8 * ParallelTokenizer.MIN_CHUNK_SIZE) {
+            result.append(chunk);
+        }
+        return result.toString();
+    }
+
+    public static void testParallelMatchesTokens() throws TokenizerException {
+        final char[] input = largeSource().toCharArray();
+        final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            final TokenStream parallel = ParallelTokenizer.tokenizeToStream(input, pool);
+            final TokenStream sequential = new Tokenizer(input).tokenizeToStream();
+            assert(parallel.size() == sequential.size());
+            for (int index = 0; index < sequential.size(); index++) {
+                assert(parallel.kind(index) == sequential.kind(index));
+                assert(parallel.start(index) == sequential.start(index));
+                assert(parallel.length(index) == sequential.length(index));
+                assert(parallel.intValue(index) == sequential.intValue(index));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void testParallelReportsBadToken() {
+        // the bad token is in a chunk of its own, not the first
+        final char[] input = (largeSource() + " # " + largeSource()).toCharArray();
+        final java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            ParallelTokenizer.tokenizeToStream(input, pool);
+            assert(false);
+        } catch (final TokenizerException e) {
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void assertRelexes(final String before,
+                                     final int offset,
+                                     final int removedLength,
+                                     final String inserted) throws TokenizerException {
+        final TokenStream old = new Tokenizer(before).tokenizeToStream();
+        final IncrementalTokenizer.Result result =
+            IncrementalTokenizer.relex(old, offset, removedLength, inserted);
+        final String after = before.substring(0, offset) + inserted + before.substring(offset + removedLength);
+        final TokenStream expected = new Tokenizer(after).tokenizeToStream();
+
+        assert(new String(result.tokens.input()).equals(after));
+        assert(result.tokens.size() == expected.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assert(result.tokens.kind(index) == expected.kind(index));
+            assert(result.tokens.start(index) == expected.start(index));
+            assert(result.tokens.length(index) == expected.length(index));
+            assert(result.tokens.intValue(index) == expected.intValue(index));
+        }
+        assert(result.oldEnd - result.firstChanged == (old.size() - expected.size()) + (result.newEnd - result.firstChanged));
+    }
+
+    public static void testRelex() throws TokenizerException {
+        final String input = "if (x1 < = 42) print(y) else while (!done) z++";
+        assertRelexes(input, 5, 0, "abc");     // grow an identifier
+        assertRelexes(input, 8, 1, "");        // "< =" becomes "<="
+        assertRelexes(input, 10, 2, "7");      // change a number
+        assertRelexes(input, 0, 0, "y ");      // at the start
+        assertRelexes(input, input.length(), 0, " + 1"); // at the end
+        assertRelexes(input, 0, input.length(), "a b"); // everything
+        assertRelexes(input, 24, 0, " ");      // whitespace only
+        assertRelexes(input, 40, 1, "");       // "z++" becomes "z+"
+    }
+
+    // a one character edit in a long input only relexes the tokens near it
+    public static void testRelexIsLocal() throws TokenizerException {
+        final String input = largeSource();
+        final TokenStream old = new Tokenizer(input).tokenizeToStream();
+        final int offset = input.length() / 2;
+        final IncrementalTokenizer.Result result = IncrementalTokenizer.relex(old, offset, 0, "q");
+        assert(result.oldEnd - result.firstChanged <= 2);
+        assert(result.newEnd - result.firstChanged <= 3);
+    }
+
+    public static void testLineMap() {
+        final LineMap lines = new LineMap("ab\ncd\n\nefg".toCharArray());
+        assert(lines.line(0) == 1 && lines.column(0) == 1);
+        assert(lines.line(2) == 1 && lines.column(2) == 3);
+        assert(lines.line(3) == 2 && lines.column(3) == 1);
+        assert(lines.line(6) == 3);
+        assert(lines.line(9) == 4 && lines.column(9) == 3);
+        assert(lines.describe(4).equals("line 2, column 2"));
+    }
+
+    public static void testErrorGivesLine() {
+        try {
+            new Tokenizer("x\n  y # z").tokenize();
+            assert(false);
+        } catch (final TokenizerException e) {
+            assert(e.getMessage().endsWith("line 2, column 5"));
+        }
+    }
+
+    public static void testPunctuation() throws TokenizerException {
+        testTokenizes("{x.y, z};",
+                      new LeftBracketToken(),
+                      new VariableToken("x"),
+                      new PeriodToken(),
+                      new VariableToken("y"),
+                      new CommaToken(),
+                      new VariableToken("z"),
+                      new RightBracketToken(),
+                      new SemiColonToken());
+    }
+
+    public static void testIntegerLiterals() throws TokenizerException {
+        testTokenizes("0", new IntegerToken(0));
+        testTokenizes("007", new IntegerToken(7));
+        testTokenizes("2147483647", new IntegerToken(Integer.MAX_VALUE));
+        testTokenizes("2147483648", new LongToken(2147483648L));
+        testTokenizes("9223372036854775807", new LongToken(Long.MAX_VALUE));
+    }
+
+    public static void testIntegerLiteralTooLarge() {
+        try {
+            new Tokenizer("x +\n 9223372036854775808").tokenize();
+            assert(false);
+        } catch (final TokenizerException e) {
+            assert(e.getMessage().endsWith("line 2, column 2"));
+        }
+    }
+
+    public static void testStreamLongValue() throws TokenizerException {
+        final TokenStream stream = new Tokenizer("12 + 4294967296").tokenizeToStream();
+        assert(stream.kind(0) == TokenKind.INTEGER && stream.longValue(0) == 12);
+        assert(stream.kind(2) == TokenKind.LONG && stream.longValue(2) == 4294967296L);
+        assert(stream.token(2).equals(new LongToken(4294967296L)));
+        final TokenStream built = TokenStream.fromTokens(new Token[] { new LongToken(-5000000000L) });
+        assert(built.longValue(0) == -5000000000L);
+    }
+
+    public static void testTokenLongerThanBuffer() {
+        try {
+            new Tokenizer(new java.io.StringReader("short waytoolongforthebuffer"), 8).tokenize();
+            assert(false);
+        } catch (final TokenizerException e) {}
+    }
+
+    public static void testFunctionIsVariable() throws TokenizerException {
+        testTokenizes("function", new VariableToken("function"));
+    }
+
     public static void testTwoReservedWords() throws TokenizerException {
         testTokenizes("if else",
                       new IfToken(),
                       new ElseToken());
     }
     
-    public static void main(String[] args) throws TokenizerException {
+    public static void main(String[] args) throws TokenizerException, java.io.IOException {
         testLeftParen();
         testRightParen();
         testVariableAlone();
         testVariableWithWhitespaceBefore();
         testVariableWithWhitespaceAfter();
         testVariableContainingReservedWords();
+        testVariableNameComesFromInput();
         testPrint();
         testString();
         testVoid();
@@ -158,7 +405,31 @@ public static void testDecrement() throws TokenizerException {
         testPublic();
         testPrivate();
         testProtected();
+        testExtends();
+        testNew();
+        testContinue();
+        testKeywordPrefixIsVariable();
         testTwoReservedWords();
+        testFunctionIsVariable();
+        testPunctuationIsShared();
+        testOperatorsBetweenOperands();
+        testStreamMatchesTokens();
+        testReaderMatchesTokens();
+        testChannelMatchesTokens();
+        testTokenLongerThanBuffer();
+        testIntegerLiterals();
+        testIntegerLiteralTooLarge();
+        testStreamLongValue();
+        testLineMap();
+        testErrorGivesLine();
+        testPunctuation();
+        testRelex();
+        testRelexIsLocal();
+        testParallelMatchesTokens();
+        testParallelReportsBadToken();
+        testUtf8BufferMatchesTokens();
+        testMalformedUtf8();
+        testMappedFileMatchesTokens();
         testAddition();
         testSubtraction();
         testMultiplication();
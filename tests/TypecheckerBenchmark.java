@@ -0,0 +1,177 @@
+package tests;
+import code.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Not a test; run by hand with `java tests.TypecheckerBenchmark` and
+// compare the numbers before and after a change to the typechecker.
+public class TypecheckerBenchmark {
+    // ---BEGIN CONSTANTS---
+    public static final int WARMUP_ROUNDS = 5;
+    public static final int MEASURED_ROUNDS = 10;
+    // ---END CONSTANTS---
+
+    // int f(int x0) { let x1: int = x0 + 1; ... return xn; }, each local
+    // used by the next
+    public static FirstOrderFunctionDefinition manyLocals(final int numLocals) {
+        final List<FormalParameter> params = new ArrayList<FormalParameter>();
+        params.add(new FormalParameter(new IntType(), new Variable("x0")));
+        final List<Stmt> body = new ArrayList<Stmt>();
+        for (int index = 1; index <= numLocals; index++) {
+            body.add(new LetStmt(new Variable("x" + index),
+                                 new IntType(),
+                                 new BinopExp(new VariableExp(new Variable("x" + (index - 1))),
+                                              new PlusBOP(),
+                                              new IntegerExp(1))));
+        }
+        return new FirstOrderFunctionDefinition(new IntType(),
+                                                new FunctionName("f"),
+                                                params,
+                                                body,
+                                                new VariableExp(new Variable("x" + numLocals)));
+    } // manyLocals
+
+    // int f(int a, bool b, var v) with numLocals lets mixing operators on
+    // ints with == on mixed types and + on untyped variables
+    public static FirstOrderFunctionDefinition manyOperators(final int numLocals) {
+        final List<FormalParameter> params = new ArrayList<FormalParameter>();
+        params.add(new FormalParameter(new IntType(), new Variable("a")));
+        params.add(new FormalParameter(new BoolType(), new Variable("b")));
+        params.add(new FormalParameter(new VarType(), new Variable("v")));
+        final Exp a = new VariableExp(new Variable("a"));
+        final Exp b = new VariableExp(new Variable("b"));
+        final Exp v = new VariableExp(new Variable("v"));
+        final List<Stmt> body = new ArrayList<Stmt>();
+        for (int index = 0; index < numLocals; index++) {
+            final Variable local = new Variable("x" + index);
+            switch (index % 4) {
+            case 0:
+                body.add(new LetStmt(local, new BoolType(), new BinopExp(a, new EqualsToBOP(), b)));
+                break;
+            case 1:
+                body.add(new LetStmt(local, new VarType(), new BinopExp(v, new PlusBOP(), a)));
+                break;
+            case 2:
+                body.add(new LetStmt(local, new BoolType(),
+                                     new BinopExp(new BinopExp(a, new PlusBOP(), new IntegerExp(1)),
+                                                  new LessThanBOP(),
+                                                  a)));
+                break;
+            default:
+                body.add(new LetStmt(local, new IntType(), new BinopExp(a, new PlusBOP(), a)));
+            }
+        }
+        return new FirstOrderFunctionDefinition(new IntType(), new FunctionName("f"), params, body, a);
+    } // manyOperators
+
+    // f0 ... f(n - 1), each like manyOperators(numLocals)
+    public static Program manyFunctions(final int numFunctions, final int numLocals) {
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        for (int index = 0; index < numFunctions; index++) {
+            final FirstOrderFunctionDefinition function = manyOperators(numLocals);
+            functions.add(new FirstOrderFunctionDefinition(function.returnType,
+                                                           new FunctionName("f" + index),
+                                                           function.formalParams,
+                                                           function.body,
+                                                           function.returnExp));
+        }
+        return new Program(functions, null);
+    } // manyFunctions
+
+    // the whole of manyFunctions through ParallelTypechecker, on a pool of
+    // the given size
+    public static void benchmarkParallel(final int numFunctions, final int numThreads) throws IllTypedException {
+        final Program program = manyFunctions(numFunctions, 100);
+        final Typechecker typechecker = new Typechecker(program);
+        final ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                ParallelTypechecker.typecheckProgram(typechecker, program, pool);
+            }
+
+            final long startNanos = System.nanoTime();
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                ParallelTypechecker.typecheckProgram(typechecker, program, pool);
+            }
+            final long totalNanos = System.nanoTime() - startNanos;
+
+            System.out.println(numFunctions + " functions (parallel, " + numThreads + " threads): " +
+                               (totalNanos / MEASURED_ROUNDS / 1000) + " us/round");
+        } finally {
+            pool.shutdown();
+        }
+    } // benchmarkParallel
+
+    public static void benchmarkOperators(final int numLocals) throws IllTypedException {
+        final FirstOrderFunctionDefinition function = manyOperators(numLocals);
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        functions.add(function);
+        final Typechecker typechecker = new Typechecker(new Program(functions, null));
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            typechecker.typecheckFunction(function);
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = TokenizerBenchmark.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            typechecker.typecheckFunction(function);
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += TokenizerBenchmark.allocatedBytes() - startBytes;
+        }
+
+        System.out.println(numLocals + " operator lets: " +
+                           (totalBytes / MEASURED_ROUNDS / numLocals) + " bytes allocated/let, " +
+                           (totalNanos / MEASURED_ROUNDS / numLocals) + " ns/let");
+    } // benchmarkOperators
+
+    public static void benchmarkLocals(final int numLocals) throws IllTypedException {
+        final FirstOrderFunctionDefinition function = manyLocals(numLocals);
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        functions.add(function);
+        final Typechecker typechecker = new Typechecker(new Program(functions, null));
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            typechecker.typecheckFunction(function);
+        }
+
+        long totalNanos = 0;
+        long totalBytes = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            final long startBytes = TokenizerBenchmark.allocatedBytes();
+            final long startNanos = System.nanoTime();
+            typechecker.typecheckFunction(function);
+            totalNanos += System.nanoTime() - startNanos;
+            totalBytes += TokenizerBenchmark.allocatedBytes() - startBytes;
+        }
+
+        System.out.println(numLocals + " locals: " +
+                           (totalBytes / MEASURED_ROUNDS / numLocals) + " bytes allocated/local, " +
+                           (totalNanos / MEASURED_ROUNDS / numLocals) + " ns/local");
+    } // benchmarkLocals
+
+    private static void warmUp(final FirstOrderFunctionDefinition function) throws IllTypedException {
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        functions.add(function);
+        final Typechecker typechecker = new Typechecker(new Program(functions, null));
+        for (int round = 0; round < WARMUP_ROUNDS * 4; round++) {
+            typechecker.typecheckFunction(function);
+        }
+    } // warmUp
+
+    public static void main(String[] args) throws IllTypedException {
+        // so the JIT has settled before even the smallest is measured
+        warmUp(manyLocals(8000));
+        warmUp(manyOperators(8000));
+        benchmarkLocals(1000);
+        benchmarkLocals(2000);
+        benchmarkLocals(4000);
+        benchmarkLocals(8000);
+        benchmarkOperators(8000);
+        benchmarkParallel(2000, 1);
+        benchmarkParallel(2000, Runtime.getRuntime().availableProcessors());
+        benchmarkParallel(2000, 4);
+    }
+} // TypecheckerBenchmark
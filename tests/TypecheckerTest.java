@@ -2,11 +2,17 @@ package tests;
 import code.*;
 import org.junit.Test;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 
+import java.lang.ref.WeakReference;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
 
 public class TypecheckerTest {
     public static Map<Variable, Type> makeEmptyGamma() {
@@ -230,6 +236,30 @@ public class TypecheckerTest {
                                          new IntegerExp(1))));
     }
     @Test
+    public void intMinusIntGivesInt() throws IllTypedException {
+        assertEquals(new IntType(),
+                     typeof(makeEmptyGamma(),
+                            new BinopExp(new IntegerExp(0),
+                                         new MinusBOP(),
+                                         new IntegerExp(1))));
+    }
+    @Test
+    public void intLessThanEqualIntGivesBool() throws IllTypedException {
+        assertEquals(new BoolType(),
+                     typeof(makeEmptyGamma(),
+                            new BinopExp(new IntegerExp(0),
+                                         new LessThanEqualBOP(),
+                                         new IntegerExp(1))));
+    }
+    @Test
+    public void boolNotEqualsBoolGivesBool() throws IllTypedException {
+        assertEquals(new BoolType(),
+                     typeof(makeEmptyGamma(),
+                            new BinopExp(new BooleanExp(true),
+                                         new NotEqualsBOP(),
+                                         new BooleanExp(false))));
+    }
+    @Test
     public void intMultIntGivesInt() throws IllTypedException {
         assertEquals(new IntType(),
                      typeof(makeEmptyGamma(),
@@ -727,4 +757,140 @@ public class TypecheckerTest {
         final Program p = makeProgram(fdef);
         new Typechecker(p).typecheckProgram(p);
     }
+
+    @Test
+    public void typeEnvExtendLeavesOriginalAlone() {
+        final TypeEnv outer = PersistentTypeEnv.EMPTY.extend(new Variable("x"), new IntType());
+        final TypeEnv inner = outer.extend(new Variable("y"), new BoolType())
+                                   .extend(new Variable("x"), new BoolType());
+        assertEquals(makeGamma(new String[]{ "x" }, new Type[]{ new IntType() }), outer.toMap());
+        assertEquals(makeGamma(new String[]{ "x", "y" }, new Type[]{ new BoolType(), new BoolType() }),
+                     inner.toMap());
+        assertEquals(2, inner.size());
+    }
+
+    @Test
+    public void typeEnvHandlesVariablesWithTheSameHash() {
+        // "Aa" and "BB" have the same hash code
+        final TypeEnv gamma = PersistentTypeEnv.EMPTY.extend(new Variable("Aa"), new IntType())
+                                                     .extend(new Variable("BB"), new BoolType())
+                                                     .extend(new Variable("Aa"), new BoolType());
+        assertEquals(new BoolType(), gamma.lookup(new Variable("Aa")));
+        assertEquals(new BoolType(), gamma.lookup(new Variable("BB")));
+        assertEquals(2, gamma.size());
+        assertEquals(null, gamma.lookup(new Variable("C#")));
+    }
+
+    @Test
+    public void typeEnvMatchesMap() {
+        final Map<Variable, Type> expected = new HashMap<Variable, Type>();
+        TypeEnv gamma = PersistentTypeEnv.EMPTY;
+        for (int index = 0; index < 5000; index++) {
+            final Variable variable = new Variable("v" + (index * 7919 % 3000));
+            final Type type = (index % 3 == 0) ? new BoolType() : new IntType();
+            expected.put(variable, type);
+            gamma = gamma.extend(variable, type);
+        }
+        assertEquals(expected, gamma.toMap());
+        assertEquals(expected.size(), gamma.size());
+        for (final Map.Entry<Variable, Type> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), gamma.lookup(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void equalTypesInternToTheSameInstance() {
+        assertSame(Types.INT, Types.intern(new IntType()));
+        assertSame(Types.reference(new ClassName("Foo")),
+                   Types.intern(new ReferenceType(new ClassName("Foo"))));
+        assertSame(Types.lambda(Types.reference(new ClassName("Foo")), Types.OBJECT),
+                   Types.intern(new LambdaType(new ReferenceType(new ClassName("Foo")),
+                                               new ReferenceType(new ClassName("java/lang/Object")))));
+        assertSame(Types.function(Types.INT, Types.BOOL),
+                   Types.intern(new FunctionType(new IntType(), new BoolType())));
+        assertEquals("LFoo;", Types.reference(new ClassName("Foo")).toDescriptorString());
+    }
+
+    // runs the collector until reference is cleared
+    private static void collect(final WeakReference<?> reference) {
+        for (int attempt = 0; attempt < 100 && reference.get() != null; attempt++) {
+            System.gc();
+        }
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void typesInternedAgainAfterCollectionStayCanonical() {
+        // the ClassName outlives the first type made from it
+        ClassName firstName = new ClassName("Collected");
+        final WeakReference<ReferenceType> first =
+            new WeakReference<ReferenceType>(Types.reference(firstName));
+        collect(first);
+
+        final ReferenceType second = Types.reference(new ClassName("Collected"));
+        assertNotSame(firstName, second.refersTo);
+        final WeakReference<ClassName> firstNameGone = new WeakReference<ClassName>(firstName);
+        firstName = null;
+        collect(firstNameGone);
+        assertSame(second, Types.reference(new ClassName("Collected")));
+    }
+
+    @Test
+    public void typeofGivesCanonicalTypes() throws IllTypedException {
+        assertSame(Types.INT, typeof(makeEmptyGamma(), new IntegerExp(1)));
+        assertSame(Types.BOOL, typeof(makeEmptyGamma(),
+                                      new BinopExp(new IntegerExp(1), new LessThanBOP(), new IntegerExp(2))));
+        assertSame(Types.function(Types.INT, Types.INT),
+                   typeof(makeEmptyGamma(),
+                          new HigherOrderFunctionDef(new Variable("x"), new IntType(), new VariableExp(new Variable("x")))));
+    }
+
+    // f0 ... f(n - 1), each with 20 lets; fi for each i in illTyped
+    // returns missingi(), which doesn't exist
+    public static Program manyFunctions(final int numFunctions, final int... illTyped) {
+        final List<FirstOrderFunctionDefinition> functions = new ArrayList<FirstOrderFunctionDefinition>();
+        for (int index = 0; index < numFunctions; index++) {
+            final FirstOrderFunctionDefinition function = TypecheckerBenchmark.manyLocals(20);
+            Exp returnExp = function.returnExp;
+            for (final int bad : illTyped) {
+                if (bad == index) {
+                    returnExp = new CallFirstOrderFunction(new FunctionName("missing" + index),
+                                                           makeActualParams());
+                }
+            }
+            functions.add(new FirstOrderFunctionDefinition(function.returnType,
+                                                           new FunctionName("f" + index),
+                                                           function.formalParams,
+                                                           function.body,
+                                                           returnExp));
+        }
+        return makeProgram(functions.toArray(new FirstOrderFunctionDefinition[0]));
+    } // manyFunctions
+
+    @Test
+    public void parallelTypecheckingAcceptsWellTypedProgram() throws IllTypedException {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelTypechecker.typecheckProgram(manyFunctions(200), pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelTypecheckingReportsErrorsInSourceOrder() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Program program = manyFunctions(200, 150, 7, 61);
+            ParallelTypechecker.typecheckProgram(program, pool);
+            fail("ill-typed program was accepted");
+        } catch (final IllTypedException e) {
+            assertEquals("function does not exist: missing7", e.getMessage());
+            assertEquals(2, e.getSuppressed().length);
+            assertEquals("function does not exist: missing61", e.getSuppressed()[0].getMessage());
+            assertEquals("function does not exist: missing150", e.getSuppressed()[1].getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
 } // TypecheckerTest